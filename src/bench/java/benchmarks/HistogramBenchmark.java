@@ -0,0 +1,82 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binning hot paths of Histograms: uniform and custom-edge counting, the
+ * Freedman-Diaconis and Scott bin-count rules, and normal sample
+ * generation. Inputs are N(0,1) samples from a fixed seed.
+ *
+ * The bin-count rules are measured from a fresh PreparedDataset, so the
+ * fused stats pass (and for FD the sort or quantile sketch) is included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class HistogramBenchmark {
+
+    @Param({"1000", "100000", "10000000", "100000000"})
+    int size;
+
+    private double[] data;
+    private double[] edges;
+
+    @Setup
+    public void setup() {
+        data = Targets.randn(Targets.rng(42), size, 0.0, 1.0);
+        // Uneven edges, so BinIndexer cannot take its uniform shortcut
+        edges = new double[]{-4.0, -2.5, -1.5, -1.0, -0.5, 0.0, 0.25, 0.5, 1.0, 2.0, 4.0};
+    }
+
+    @Benchmark
+    public Object uniformBinHistogramInRange() {
+        return Targets.uniformBinHistogramInRange(data, -4.0, 4.0, 50);
+    }
+
+    @Benchmark
+    public Object histogramWithCustomEdges() {
+        return Targets.histogramWithCustomEdges(data, edges);
+    }
+
+    @Benchmark
+    public int fdBinCount() {
+        return Targets.fdBinCount(Targets.prepare(data));
+    }
+
+    @Benchmark
+    public int scottBinCount() {
+        return Targets.scottBinCount(Targets.prepare(data));
+    }
+
+    @Benchmark
+    public double[] randn() {
+        return Targets.randn(Targets.rng(42), size, 0.0, 1.0);
+    }
+
+    /** Baseline: serial java.util.Random.nextGaussian, what randn used before. */
+    @Benchmark
+    public double[] randnJavaUtilRandom() {
+        Random rng = new Random(42);
+        double[] out = new double[size];
+        for (int i = 0; i < size; i++) {
+            out[i] = rng.nextGaussian();
+        }
+        return out;
+    }
+}
@@ -0,0 +1,110 @@
+package benchmarks;
+
+import org.knowm.xchart.CategoryChart;
+import org.knowm.xchart.CategoryChartBuilder;
+import org.knowm.xchart.XYChart;
+import org.knowm.xchart.XYChartBuilder;
+import org.knowm.xchart.style.markers.SeriesMarkers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full rasterization of an XYChart and a histogram CategoryChart into a
+ * 1200x800 BufferedImage, the work XChartPanel does on every repaint.
+ *
+ * Point counts stop at 10^5: Java2D strokes every segment of an
+ * anti-aliased polyline, so raw series beyond that take many seconds per
+ * frame (which is what SeriesDecimator and LodPyramid are for). The
+ * decimated variant shows the cost after reducing to the plot width.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx2g"})
+public class RenderBenchmark {
+
+    private static final int WIDTH = 1200;
+    private static final int HEIGHT = 800;
+
+    @Param({"1000", "10000", "100000"})
+    int points;
+
+    @Param({"50"})
+    int bins;
+
+    private XYChart lineChart;
+    private XYChart decimatedChart;
+    private CategoryChart histogramChart;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup
+    public void setup() {
+        double[] x = Targets.linspace(0.0, 20.0 * Math.PI, points);
+        double[] y = Targets.map(x, Targets.kernel("SIN"));
+        lineChart = lineChart(x, y, false);
+        decimatedChart = lineChart(x, y, true);
+
+        double[] data = Targets.randn(Targets.rng(42), points, 0.0, 1.0);
+        Object h = Targets.uniformBinHistogramInRange(data, -4.0, 4.0, bins);
+        histogramChart = new CategoryChartBuilder().width(WIDTH).height(HEIGHT).title("Histogram").build();
+        histogramChart.getStyler().setLegendVisible(false);
+        histogramChart.addSeries("data", Targets.doubleList(Targets.binCenters(h)),
+                Targets.doubleList(Targets.binCounts(h)));
+
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+    }
+
+    private static XYChart lineChart(double[] x, double[] y, boolean decimated) {
+        XYChart chart = new XYChartBuilder().width(WIDTH).height(HEIGHT).title("Line").build();
+        chart.getStyler().setLegendVisible(false);
+        if (decimated) {
+            double[][] xy = Targets.minMax(x, y, WIDTH);
+            chart.addSeries("sin", xy[0], xy[1]).setMarker(SeriesMarkers.NONE);
+        } else {
+            chart.addSeries("sin", x, y).setMarker(SeriesMarkers.NONE);
+        }
+        return chart;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage xyChart() {
+        lineChart.paint(graphics, WIDTH, HEIGHT);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage xyChartDecimated() {
+        decimatedChart.paint(graphics, WIDTH, HEIGHT);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage categoryChart() {
+        histogramChart.paint(graphics, WIDTH, HEIGHT);
+        return image;
+    }
+}
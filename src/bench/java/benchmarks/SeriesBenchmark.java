@@ -0,0 +1,110 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Series preparation: LinePlots.linspace, ArrayKernels.map with a lambda
+ * kernel (ArrayKernels.of, one call per element) against the built-in
+ * kernels (one loop per kernel), and handing a double[]
+ * to a chart either as a boxed List<Double> copy or as the
+ * Histograms.DoubleArrayList view. The boxed copy of 10^8 points needs
+ * about 2 GB on top of the input, hence the larger heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SeriesBenchmark {
+
+    @Param({"1000", "100000", "10000000", "100000000"})
+    int size;
+
+    private double[] x;
+    private Object sinKernel;
+    private Object affineKernel;
+    private Object sinLambda;
+    private Object affineLambda;
+
+    @Setup
+    public void setup() {
+        x = Targets.linspace(0.0, 2.0 * Math.PI, size);
+        sinKernel = Targets.kernel("SIN");
+        affineKernel = Targets.affineKernel(2.0, 1.0);
+        sinLambda = Targets.lambdaKernel(Math::sin);
+        affineLambda = Targets.lambdaKernel(v -> 2.0 * v + 1.0);
+    }
+
+    @Benchmark
+    public double[] linspace() {
+        return Targets.linspace(0.0, 2.0 * Math.PI, size);
+    }
+
+    @Benchmark
+    public double[] applySin() {
+        return Targets.map(x, sinLambda);
+    }
+
+    @Benchmark
+    public double[] applyAffine() {
+        return Targets.map(x, affineLambda);
+    }
+
+    @Benchmark
+    public double[] kernelSin() {
+        return Targets.map(x, sinKernel);
+    }
+
+    @Benchmark
+    public double[] kernelAffine() {
+        return Targets.map(x, affineKernel);
+    }
+
+    /** The copy a chart would get from a naive conversion (one Double per point). */
+    @Benchmark
+    public List<Double> boxedListCopy() {
+        List<Double> list = new ArrayList<>(x.length);
+        for (double v : x) {
+            list.add(v);
+        }
+        return list;
+    }
+
+    /** Reading every point through the boxed copy, as a chart's painter would. */
+    @Benchmark
+    public void boxedListCopyAndRead(Blackhole bh) {
+        List<Double> list = boxedListCopy();
+        double sum = 0.0;
+        for (int i = 0; i < list.size(); i++) {
+            sum += list.get(i);
+        }
+        bh.consume(sum);
+    }
+
+    /** The same read through the no-copy view (boxing happens per get, if not eliminated). */
+    @Benchmark
+    public void primitiveViewRead(Blackhole bh) {
+        List<Double> list = Targets.doubleList(x);
+        double sum = 0.0;
+        for (int i = 0; i < list.size(); i++) {
+            sum += list.get(i);
+        }
+        bh.consume(sum);
+    }
+}
@@ -0,0 +1,242 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * The example code under test, reached through method handles: it lives in
+ * the unnamed package, which a named package cannot import, and JMH will
+ * not generate benchmarks in the unnamed package.
+ *
+ * The handles are static final, so the JIT treats them as constants and
+ * inlines through them like a direct call. Package-private result types
+ * (HistogramData, PreparedDataset) are passed around as Object.
+ */
+final class Targets {
+
+    private static final MethodHandle RANDN = method("Histograms", "randn",
+            SplittableGenerator.class, int.class, double.class, double.class);
+    private static final MethodHandle CREATE_RNG = method("ParallelRandom", "create", long.class);
+    private static final MethodHandle UNIFORM_IN_RANGE = method("Histograms", "uniformBinHistogramInRange",
+            double[].class, double.class, double.class, int.class);
+    private static final MethodHandle CUSTOM_EDGES = method("Histograms", "histogramWithCustomEdges",
+            double[].class, double[].class);
+    private static final MethodHandle FD_BIN_COUNT = method("Histograms", "fdBinCount", type("PreparedDataset"));
+    private static final MethodHandle SCOTT_BIN_COUNT = method("Histograms", "scottBinCount", type("PreparedDataset"));
+    private static final MethodHandle PREPARE = method("PreparedDataset", "of", double[].class);
+    private static final MethodHandle LINSPACE = method("LinePlots", "linspace",
+            double.class, double.class, int.class);
+    private static final MethodHandle MIN_MAX = method("SeriesDecimator", "minMax",
+            double[].class, double[].class, int.class, int.class, int.class);
+    private static final MethodHandle KERNEL_MAP = method("ArrayKernels", "map",
+            double[].class, type("ArrayKernels$Kernel"));
+    private static final MethodHandle KERNEL_AFFINE = method("ArrayKernels", "affine", double.class, double.class);
+    private static final MethodHandle KERNEL_OF = method("ArrayKernels", "of", DoubleUnaryOperator.class);
+    private static final MethodHandle DOUBLE_LIST = constructor("Histograms$DoubleArrayList", double[].class);
+    private static final MethodHandle BIN_CENTERS = getter("Histograms$HistogramData", "binCenters");
+    private static final MethodHandle BIN_COUNTS = getter("Histograms$HistogramData", "binCounts");
+
+    private Targets() {
+    }
+
+    static double[] randn(SplittableGenerator rng, int n, double mean, double stdDev) {
+        try {
+            return (double[]) (Object) RANDN.invokeExact((Object) rng, n, mean, stdDev);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** ParallelRandom.create(seed), the generator the examples use. */
+    static SplittableGenerator rng(long seed) {
+        try {
+            return (SplittableGenerator) (Object) CREATE_RNG.invokeExact(seed);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** A Histograms.HistogramData. */
+    static Object uniformBinHistogramInRange(double[] data, double min, double max, int numBins) {
+        try {
+            return UNIFORM_IN_RANGE.invokeExact((Object) data, min, max, numBins);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** A Histograms.HistogramData. */
+    static Object histogramWithCustomEdges(double[] data, double[] edges) {
+        try {
+            return CUSTOM_EDGES.invokeExact((Object) data, (Object) edges);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** A PreparedDataset over data. */
+    static Object prepare(double[] data) {
+        try {
+            return PREPARE.invokeExact((Object) data);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int fdBinCount(Object preparedDataset) {
+        try {
+            return (int) FD_BIN_COUNT.invokeExact(preparedDataset);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int scottBinCount(Object preparedDataset) {
+        try {
+            return (int) SCOTT_BIN_COUNT.invokeExact(preparedDataset);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static double[] linspace(double start, double end, int num) {
+        try {
+            return (double[]) (Object) LINSPACE.invokeExact(start, end, num);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** ArrayKernels.of(op), a kernel that calls op once per element. */
+    static Object lambdaKernel(DoubleUnaryOperator op) {
+        try {
+            return KERNEL_OF.invokeExact((Object) op);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** An ArrayKernels.Kernel constant, e.g. "SIN". */
+    static Object kernel(String name) {
+        try {
+            Field f = type("ArrayKernels").getDeclaredField(name);
+            f.setAccessible(true);
+            return f.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Missing ArrayKernels." + name, e);
+        }
+    }
+
+    /** ArrayKernels.affine(a, b). */
+    static Object affineKernel(double a, double b) {
+        try {
+            return KERNEL_AFFINE.invokeExact(a, b);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** ArrayKernels.map with a kernel from kernel(), affineKernel() or lambdaKernel(). */
+    static double[] map(double[] x, Object kernel) {
+        try {
+            return (double[]) (Object) KERNEL_MAP.invokeExact((Object) x, kernel);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** SeriesDecimator.minMax over the whole series. */
+    static double[][] minMax(double[] x, double[] y, int columns) {
+        try {
+            return (double[][]) (Object) MIN_MAX.invokeExact((Object) x, (Object) y, 0, x.length, columns);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** The no-copy Histograms.DoubleArrayList view over values. */
+    @SuppressWarnings("unchecked")
+    static List<Double> doubleList(double[] values) {
+        try {
+            return (List<Double>) (Object) DOUBLE_LIST.invokeExact((Object) values);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static double[] binCenters(Object histogramData) {
+        try {
+            return (double[]) (Object) BIN_CENTERS.invokeExact(histogramData);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static double[] binCounts(Object histogramData) {
+        try {
+            return (double[]) (Object) BIN_COUNTS.invokeExact(histogramData);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Example class not on the classpath: " + name, e);
+        }
+    }
+
+    // Handles are erased to Object / primitives, since the real types are not visible here
+    private static MethodHandle method(String owner, String name, Class<?>... params) {
+        try {
+            Method m = type(owner).getDeclaredMethod(name, params);
+            m.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflect(m);
+            return handle.asType(handle.type().erase());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Missing " + owner + "." + name, e);
+        }
+    }
+
+    private static MethodHandle constructor(String owner, Class<?>... params) {
+        try {
+            Constructor<?> c = type(owner).getDeclaredConstructor(params);
+            c.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflectConstructor(c);
+            return handle.asType(handle.type().erase());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Missing constructor of " + owner, e);
+        }
+    }
+
+    private static MethodHandle getter(String owner, String field) {
+        try {
+            Field f = type(owner).getDeclaredField(field);
+            f.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflectGetter(f);
+            return handle.asType(handle.type().erase());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Missing " + owner + "." + field, e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new IllegalStateException(t);
+    }
+}
@@ -0,0 +1,215 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Array-at-a-time math for building series: y = f(x) evaluated one block
+ * of a few thousand elements at a time instead of one lambda call per
+ * element.
+ *
+ * Each Kernel runs its own tight loop over a block (Math.sin, a * x + b,
+ * ...), so every loop has a single, inlinable call site and the simple
+ * arithmetic ones are auto-vectorized by C2. Composed kernels run stage
+ * by stage over the same block while it is still in L1. Arrays of at
+ * least PARALLEL_THRESHOLD elements are split over the common
+ * fork/join pool; every element is computed exactly as the equivalent
+ * scalar expression, so results do not depend on the thread count.
+ */
+final class ArrayKernels {
+
+    /** Arrays shorter than this are evaluated on the calling thread. */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Elements per block (16 KB of doubles, so a block and its scratch stay in L1)
+    private static final int BLOCK = 2048;
+
+    // Blocks per leaf task
+    private static final int BLOCKS_PER_TASK = 16;
+
+    /**
+     * dst[i] = f(src[i]) for from <= i < to. src and dst may be the same
+     * array; to - from is at most one block.
+     */
+    interface Kernel {
+        void apply(double[] src, double[] dst, int from, int to);
+
+        /** This kernel, then next on its result. */
+        default Kernel andThen(Kernel next) {
+            Kernel first = this;
+            return (src, dst, from, to) -> {
+                first.apply(src, dst, from, to);
+                next.apply(dst, dst, from, to);
+            };
+        }
+    }
+
+    static final Kernel SIN = (src, dst, from, to) -> {
+        for (int i = from; i < to; i++) {
+            dst[i] = Math.sin(src[i]);
+        }
+    };
+
+    static final Kernel COS = (src, dst, from, to) -> {
+        for (int i = from; i < to; i++) {
+            dst[i] = Math.cos(src[i]);
+        }
+    };
+
+    static final Kernel TAN = (src, dst, from, to) -> {
+        for (int i = from; i < to; i++) {
+            dst[i] = Math.tan(src[i]);
+        }
+    };
+
+    static final Kernel NEGATE = (src, dst, from, to) -> {
+        for (int i = from; i < to; i++) {
+            dst[i] = -src[i];
+        }
+    };
+
+    private ArrayKernels() {
+    }
+
+    /** x * a (same as affine(a, 0) except that it keeps the sign of zero). */
+    static Kernel scale(double a) {
+        return (src, dst, from, to) -> {
+            for (int i = from; i < to; i++) {
+                dst[i] = src[i] * a;
+            }
+        };
+    }
+
+    /** x + b. */
+    static Kernel shift(double b) {
+        return (src, dst, from, to) -> {
+            for (int i = from; i < to; i++) {
+                dst[i] = src[i] + b;
+            }
+        };
+    }
+
+    /** a * x + b. */
+    static Kernel affine(double a, double b) {
+        return (src, dst, from, to) -> {
+            for (int i = from; i < to; i++) {
+                dst[i] = a * src[i] + b;
+            }
+        };
+    }
+
+    /** The kernels applied in order: compose(f, g)(x) = g(f(x)). */
+    static Kernel compose(Kernel first, Kernel... rest) {
+        Kernel k = first;
+        for (Kernel next : rest) {
+            k = k.andThen(next);
+        }
+        return k;
+    }
+
+    /** f(x) - g(x). */
+    static Kernel subtract(Kernel f, Kernel g) {
+        return (src, dst, from, to) -> {
+            // g runs on a copy of the block, since dst may be src
+            double[] scratch = Arrays.copyOfRange(src, from, to);
+            g.apply(scratch, scratch, 0, scratch.length);
+            f.apply(src, dst, from, to);
+            for (int i = from; i < to; i++) {
+                dst[i] -= scratch[i - from];
+            }
+        };
+    }
+
+    /**
+     * Per-element fallback for functions with no kernel; still blocked and
+     * parallel, but one op call per element.
+     */
+    static Kernel of(DoubleUnaryOperator op) {
+        return (src, dst, from, to) -> {
+            for (int i = from; i < to; i++) {
+                dst[i] = op.applyAsDouble(src[i]);
+            }
+        };
+    }
+
+    /** A new array with kernel applied to every element of x. */
+    static double[] map(double[] x, Kernel kernel) {
+        double[] y = new double[x.length];
+        run(x.length, (from, to) -> kernel.apply(x, y, from, to));
+        return y;
+    }
+
+    /** Applies kernel to x in place. */
+    static void mapInPlace(double[] x, Kernel kernel) {
+        run(x.length, (from, to) -> kernel.apply(x, x, from, to));
+    }
+
+    /**
+     * dst[i] = kernel(src[i]) for from <= i < to, block by block on the
+     * calling thread, for callers that already split the work themselves.
+     */
+    static void applySerial(Kernel kernel, double[] src, double[] dst, int from, int to) {
+        runBlocks(from, to, (f, t) -> kernel.apply(src, dst, f, t));
+    }
+
+    /** num evenly spaced values over [start, end]: start + step * i, step = (end - start) / (num - 1). */
+    static double[] linspace(double start, double end, int num) {
+        double[] result = new double[num];
+        if (num == 1) {
+            result[0] = start;
+            return result;
+        }
+        double step = (end - start) / (num - 1);
+        run(num, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                result[i] = start + step * i;
+            }
+        });
+        return result;
+    }
+
+    // -------------------------------------------------------------------------
+
+    private interface BlockAction {
+        void run(int from, int to);
+    }
+
+    private static void run(int size, BlockAction action) {
+        if (size < PARALLEL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            runBlocks(0, size, action);
+        } else {
+            ForkJoinPool.commonPool().invoke(new BlockTask(0, size, action));
+        }
+    }
+
+    private static void runBlocks(int from, int to, BlockAction action) {
+        for (int start = from; start < to; start += BLOCK) {
+            action.run(start, Math.min(to, start + BLOCK));
+        }
+    }
+
+    private static final class BlockTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final BlockAction action;
+
+        BlockTask(int from, int to, BlockAction action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BLOCK * BLOCKS_PER_TASK) {
+                runBlocks(from, to, action);
+                return;
+            }
+            // Split on a block boundary
+            int mid = from + ((to - from) / BLOCK / 2) * BLOCK;
+            invokeAll(new BlockTask(from, mid, action), new BlockTask(mid, to, action));
+        }
+    }
+}
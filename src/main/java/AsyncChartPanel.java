@@ -0,0 +1,166 @@
+import org.knowm.xchart.XYChart;
+import org.knowm.xchart.internal.chartpart.Chart;
+
+import javax.swing.*;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chart panel that rasterizes off the EDT: the chart is painted into a
+ * BufferedImage on a shared pool of render threads, and the EDT only blits
+ * the last finished frame (scaled to the current size while a new one is
+ * being drawn).
+ *
+ * Each panel has at most one render running. Size changes while it runs
+ * only record the latest wanted size; when the render finishes, one new
+ * render starts for that size, and every size in between is skipped. So
+ * a resize storm costs one render per finished frame, and the EDT never
+ * waits for Java2D no matter how expensive the chart is.
+ *
+ * Frames come from ChartImageCache, so a size and chart version that was
+ * already drawn (by this or another panel, or an export) is not drawn
+ * again. Rendering holds the chart's lock and leaves the chart at its own
+ * size, so the panel's size never leaks into other views of the chart.
+ *
+ * Tooltips and zoom need an XChartPanel and are switched off. The chart
+ * must not be modified while it may be rendering; after changing it on
+ * the EDT, call chartChanged(). Charts updated many times a second belong
+ * in an XChartPanel driven by LiveChart.
+ */
+final class AsyncChartPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ExecutorService RENDERER = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "chart-render-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+    /** What a frame shows: a pixel size and the chart version it was drawn from. */
+    private static final class Target {
+        final int width;
+        final int height;
+        final long version;
+
+        Target(int width, int height, long version) {
+            this.width = width;
+            this.height = height;
+            this.version = version;
+        }
+
+        boolean sameAs(Target other) {
+            return other != null && width == other.width && height == other.height && version == other.version;
+        }
+    }
+
+    private final Chart<?, ?> chart;
+
+    // EDT only
+    private BufferedImage frame;
+    private Target frameTarget;
+    private boolean rendering;
+    private long version;
+
+    // Written on the EDT, read by the render thread to drop superseded work
+    private volatile Target wanted;
+
+    AsyncChartPanel(Chart<?, ?> chart) {
+        this.chart = chart;
+        chart.getStyler().setToolTipsEnabled(false);
+        if (chart instanceof XYChart) {
+            ((XYChart) chart).getStyler().setZoomEnabled(false);
+        }
+        setPreferredSize(new Dimension(chart.getWidth(), chart.getHeight()));
+        setOpaque(true);
+        setBackground(Color.WHITE);
+    }
+
+    /** Redraws after the chart's data or styling changed (EDT). */
+    void chartChanged() {
+        ChartImageCache.SHARED.invalidate(chart);
+        version++;
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        if (frame != null) {
+            Graphics2D g2 = (Graphics2D) g;
+            if (frame.getWidth() == width && frame.getHeight() == height) {
+                g2.drawImage(frame, 0, 0, null);
+            } else {
+                g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2.drawImage(frame, 0, 0, width, height, null);
+            }
+        }
+
+        Target target = new Target(width, height, version);
+        if (!target.sameAs(frameTarget)) {
+            if (!target.sameAs(wanted)) {
+                wanted = target;
+            }
+            if (!rendering) {
+                startRender(target);
+            }
+        }
+    }
+
+    private void startRender(Target target) {
+        rendering = true;
+        RENDERER.execute(() -> {
+            // Skip a render that was superseded while it waited in the queue
+            BufferedImage image = null;
+            boolean failed = false;
+            if (target.sameAs(wanted)) {
+                try {
+                    image = ChartImageCache.SHARED.render(chart, target.width, target.height);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    failed = true;
+                }
+            }
+            BufferedImage done = image;
+            boolean doneFailed = failed;
+            SwingUtilities.invokeLater(() -> finishRender(target, done, doneFailed));
+        });
+    }
+
+    private void finishRender(Target target, BufferedImage image, boolean failed) {
+        rendering = false;
+        if (image != null) {
+            // Even a superseded frame is closer than the previous one; show it until the next arrives
+            frame = image;
+            frameTarget = target;
+            repaint();
+        } else if (failed) {
+            // Keep the old frame, and don't retry until the size or chart changes
+            frameTarget = target;
+        }
+        Target latest = wanted;
+        if (latest != null && !latest.sameAs(frameTarget)) {
+            startRender(latest);
+        }
+    }
+}
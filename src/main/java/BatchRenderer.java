@@ -0,0 +1,221 @@
+// BatchRenderer.java
+// Headless batch export of every LinePlots / Histograms example as PNG and/or SVG.
+//
+// Usage: BatchRenderer [outputDir] [formats] [threads]
+//   outputDir  default "charts"
+//   formats    comma-separated, png and/or svg (default "png,svg")
+//   threads    render workers (default: number of cores)
+//
+// Charts are built and rendered on one bounded ChartPipeline: every
+// example builds concurrently (each has its own seeded RNG, so the data is
+// the same as in the GUI), and each chart renders as soon as its example
+// is built. No display is needed.
+
+import org.knowm.xchart.VectorGraphicsEncoder;
+import org.knowm.xchart.XYChart;
+import org.knowm.xchart.internal.chartpart.Chart;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+
+public class BatchRenderer {
+
+    enum Format {
+        PNG,
+        SVG;
+
+        String extension() {
+            return "." + name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /** One example factory; list factories (grids) produce one file per chart. */
+    static final class Job {
+        final String name;
+        final Supplier<List<? extends Chart<?, ?>>> factory;
+
+        private Job(String name, Supplier<List<? extends Chart<?, ?>>> factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+
+        static Job of(String name, Supplier<? extends Chart<?, ?>> factory) {
+            return new Job(name, () -> Collections.singletonList(factory.get()));
+        }
+
+        static Job ofList(String name, Supplier<? extends List<? extends Chart<?, ?>>> factory) {
+            return new Job(name, factory::get);
+        }
+    }
+
+    /** Timing of one rendered chart (all requested formats). */
+    static final class Result {
+        final String name;
+        final double buildMillis;
+        final double renderMillis;
+        final String thread;
+        final List<Path> files;
+
+        Result(String name, double buildMillis, double renderMillis, String thread, List<Path> files) {
+            this.name = name;
+            this.buildMillis = buildMillis;
+            this.renderMillis = renderMillis;
+            this.thread = thread;
+            this.files = files;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Must be set before the first AWT class is touched
+        System.setProperty("java.awt.headless", "true");
+
+        Path outputDir = Paths.get(args.length > 0 ? args[0] : "charts");
+        Set<Format> formats = parseFormats(args.length > 1 ? args[1] : "png,svg");
+        int threads = args.length > 2
+                ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+
+        List<Job> jobs = new ArrayList<>();
+        jobs.addAll(LinePlots.batchJobs());
+        jobs.addAll(Histograms.batchJobs());
+
+        long start = System.nanoTime();
+        List<Result> results = render(jobs, outputDir, formats, threads);
+        double wallMillis = (System.nanoTime() - start) / 1e6;
+
+        printReport(results, wallMillis, threads);
+    }
+
+    /**
+     * Builds all jobs concurrently and renders each chart once its job is
+     * built, on at most threads workers. Results are in job order.
+     */
+    static List<Result> render(List<Job> jobs,
+                               Path outputDir,
+                               Set<Format> formats,
+                               int threads) throws IOException {
+        Files.createDirectories(outputDir);
+
+        ChartPipeline pipeline = new ChartPipeline(Math.max(1, threads));
+        try {
+            // Per job: a stage that runs once the job is built and starts one render stage per chart
+            List<ChartPipeline.Stage<List<ChartPipeline.Stage<Result>>>> jobRenders = new ArrayList<>(jobs.size());
+            for (Job job : jobs) {
+                ChartPipeline.Stage<List<? extends Chart<?, ?>>> build = pipeline.add(job.name, job.factory);
+                jobRenders.add(pipeline.add("split " + job.name, build, charts -> {
+                    int count = charts.size();
+                    double buildMillis = build.millis() / count;
+                    List<ChartPipeline.Stage<Result>> renders = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        Chart<?, ?> chart = charts.get(i);
+                        String name = count == 1 ? job.name : job.name + "-" + (i + 1);
+                        renders.add(pipeline.add("render " + name, build, built -> {
+                            try {
+                                return renderOne(chart, name, buildMillis, outputDir, formats);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }));
+                    }
+                    return renders;
+                }));
+            }
+
+            List<Result> results = new ArrayList<>();
+            for (ChartPipeline.Stage<List<ChartPipeline.Stage<Result>>> renders : jobRenders) {
+                for (ChartPipeline.Stage<Result> r : renders.join()) {
+                    try {
+                        results.add(r.join());
+                    } catch (UncheckedIOException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+            return results;
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    private static Result renderOne(Chart<?, ?> chart,
+                                    String name,
+                                    double buildMillis,
+                                    Path outputDir,
+                                    Set<Format> formats) throws IOException {
+        prepareForExport(chart);
+
+        long t0 = System.nanoTime();
+        List<Path> files = new ArrayList<>(formats.size());
+        for (Format format : formats) {
+            Path file = outputDir.resolve(name + format.extension());
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                if (format == Format.PNG) {
+                    // Same pixels as BitmapEncoder; a chart exported before is not repainted
+                    BufferedImage image = ChartImageCache.SHARED.render(chart, chart.getWidth(), chart.getHeight());
+                    ImageIO.write(image, "png", out);
+                } else {
+                    ChartTelemetry.paint(chart, chart.getWidth(), chart.getHeight(), () -> {
+                        try {
+                            VectorGraphicsEncoder.saveVectorGraphic(chart, out, VectorGraphicsEncoder.VectorGraphicsFormat.SVG);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            files.add(file);
+        }
+        double renderMillis = (System.nanoTime() - t0) / 1e6;
+        return new Result(name, buildMillis, renderMillis, Thread.currentThread().getName(), files);
+    }
+
+    /** Switches off tooltips and zoom: panel features, which XChart's encoders fail on. */
+    static void prepareForExport(Chart<?, ?> chart) {
+        chart.getStyler().setToolTipsEnabled(false);
+        if (chart instanceof XYChart) {
+            ((XYChart) chart).getStyler().setZoomEnabled(false);
+        }
+    }
+
+    private static Set<Format> parseFormats(String spec) {
+        Set<Format> formats = EnumSet.noneOf(Format.class);
+        for (String s : spec.split(",")) {
+            if (!s.trim().isEmpty()) {
+                formats.add(Format.valueOf(s.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        if (formats.isEmpty()) {
+            throw new IllegalArgumentException("No output format in '" + spec + "'");
+        }
+        return formats;
+    }
+
+    private static void printReport(List<Result> results, double wallMillis, int threads) {
+        System.out.printf("%-32s %10s %10s  %s%n", "chart", "build ms", "render ms", "thread");
+        double renderTotal = 0.0;
+        int fileCount = 0;
+        for (Result r : results) {
+            System.out.printf("%-32s %10.1f %10.1f  %s%n", r.name, r.buildMillis, r.renderMillis, r.thread);
+            renderTotal += r.renderMillis;
+            fileCount += r.files.size();
+        }
+        System.out.printf("%d charts, %d files, %d threads: wall %.1f ms, summed render %.1f ms (%.2fx)%n",
+                results.size(), fileCount, threads, wallMillis, renderTotal, renderTotal / wallMillis);
+    }
+}
@@ -0,0 +1,246 @@
+/**
+ * Maps a sample to its bin index, either for an explicit array of bin
+ * edges or for numBins equal bins over [min, max].
+ *
+ * Edge bins are [edges[i], edges[i + 1]) except the last one, which also
+ * includes its right edge. Values outside [edges[0], edges[last]] and NaN
+ * map to -1.
+ *
+ * Range bins use exactly the arithmetic of the uniform histogram builders
+ * ((v - min) / binWidth, with max counted in the last bin).
+ *
+ * For edge arrays the lookup strategy is chosen once:
+ *   - UNIFORM: equally spaced edges, index computed arithmetically
+ *   - TABLE:   many uneven edges, a coarse lookup table narrows the
+ *              binary search to a few candidate edges
+ *   - SEARCH:  few uneven edges, plain branch-light binary search
+ *   - LINEAR:  edges not sorted ascending, first-match scan (legacy rule)
+ *
+ * Every strategy gives exactly the same index as a linear scan over the
+ * edges; arithmetic results are corrected against the real edge values.
+ */
+final class BinIndexer {
+
+    private static final int MODE_LINEAR = 0;
+    private static final int MODE_UNIFORM = 1;
+    private static final int MODE_TABLE = 2;
+    private static final int MODE_SEARCH = 3;
+    private static final int MODE_RANGE = 4;
+
+    // Below this many bins a binary search is already only a few steps
+    private static final int TABLE_MIN_BINS = 32;
+    private static final int TABLE_CELLS_PER_BIN = 4;
+    private static final int TABLE_MAX_CELLS = 1 << 16;
+
+    // Relative tolerance when deciding whether edges are equally spaced
+    private static final double UNIFORM_TOLERANCE = 1e-9;
+
+    private final double[] edges;
+    private final int numBins;
+    private final int mode;
+    private final double first;
+    private final double last;
+
+    // UNIFORM: 1 / binWidth, TABLE: 1 / cellWidth, RANGE: binWidth (divided by)
+    private final double scale;
+
+    // TABLE only: candidate bin range [cellLo[c], cellHi[c]] for each cell
+    private final int[] cellLo;
+    private final int[] cellHi;
+
+    private BinIndexer(double[] edges, int mode, double scale, int[] cellLo, int[] cellHi) {
+        this(edges,
+                Math.max(0, edges.length - 1),
+                mode,
+                edges.length > 0 ? edges[0] : Double.NaN,
+                edges.length > 0 ? edges[edges.length - 1] : Double.NaN,
+                scale,
+                cellLo,
+                cellHi);
+    }
+
+    private BinIndexer(double[] edges,
+                       int numBins,
+                       int mode,
+                       double first,
+                       double last,
+                       double scale,
+                       int[] cellLo,
+                       int[] cellHi) {
+        this.edges = edges;
+        this.numBins = numBins;
+        this.mode = mode;
+        this.first = first;
+        this.last = last;
+        this.scale = scale;
+        this.cellLo = cellLo;
+        this.cellHi = cellHi;
+    }
+
+    /** Picks the fastest lookup for the given edges (the array is copied). */
+    static BinIndexer forEdges(double[] edges) {
+        double[] e = edges.clone();
+        int numBins = e.length - 1;
+
+        if (numBins < 1 || !isAscending(e)) {
+            return new BinIndexer(e, MODE_LINEAR, 0.0, null, null);
+        }
+
+        double width = (e[numBins] - e[0]) / numBins;
+        if (width > 0.0 && isUniform(e, width)) {
+            return new BinIndexer(e, MODE_UNIFORM, 1.0 / width, null, null);
+        }
+
+        if (numBins < TABLE_MIN_BINS || !(e[numBins] > e[0]) || !Double.isFinite(e[numBins] - e[0])) {
+            return new BinIndexer(e, MODE_SEARCH, 0.0, null, null);
+        }
+
+        int cells = (int) Math.min((long) numBins * TABLE_CELLS_PER_BIN, TABLE_MAX_CELLS);
+        double cellWidth = (e[numBins] - e[0]) / cells;
+        int[] lo = new int[cells];
+        int[] hi = new int[cells];
+        for (int c = 0; c < cells; c++) {
+            lo[c] = searchBin(e, e[0] + c * cellWidth);
+            hi[c] = searchBin(e, Math.min(e[numBins], e[0] + (c + 1) * cellWidth));
+        }
+        return new BinIndexer(e, MODE_TABLE, 1.0 / cellWidth, lo, hi);
+    }
+
+    /** numBins equal bins over [min, max], same rule as uniformBinHistogramInRange. */
+    static BinIndexer forRange(double min, double max, int numBins) {
+        double binWidth = (max - min) / numBins;
+        return new BinIndexer(null, numBins, MODE_RANGE, min, max, binWidth, null, null);
+    }
+
+    int numBins() {
+        return numBins;
+    }
+
+    /** The lookup strategy picked (UNIFORM, TABLE, SEARCH, LINEAR or RANGE), for tests. */
+    String strategy() {
+        switch (mode) {
+            case MODE_UNIFORM:
+                return "UNIFORM";
+            case MODE_TABLE:
+                return "TABLE";
+            case MODE_SEARCH:
+                return "SEARCH";
+            case MODE_RANGE:
+                return "RANGE";
+            default:
+                return "LINEAR";
+        }
+    }
+
+    /** Bin index of v, or -1 if v is NaN or outside the edges. */
+    int indexOf(double v) {
+        if (mode == MODE_RANGE) {
+            return rangeBin(v);
+        }
+        if (!(v >= first && v <= last)) {
+            return -1;
+        }
+        switch (mode) {
+            case MODE_UNIFORM:
+                return refine((int) Math.min((v - first) * scale, numBins - 1), v);
+            case MODE_TABLE: {
+                int c = (int) ((v - first) * scale);
+                if (c >= cellLo.length) c = cellLo.length - 1;
+                return refine(searchBin(edges, cellLo[c], cellHi[c], v), v);
+            }
+            case MODE_SEARCH:
+                return searchBin(edges, v);
+            default:
+                return linearBin(v);
+        }
+    }
+
+    /** Adds one count per in-range sample of data[from, to) to counts. */
+    void countInto(double[] data, int from, int to, double[] counts) {
+        for (int i = from; i < to; i++) {
+            int idx = indexOf(data[i]);
+            if (idx >= 0) {
+                counts[idx] += 1.0;
+            }
+        }
+    }
+
+    // ----- Lookup helpers -----
+
+    /** Moves a candidate index onto the bin that really contains v. */
+    private int refine(int idx, double v) {
+        while (idx > 0 && v < edges[idx]) {
+            idx--;
+        }
+        while (idx < numBins - 1 && v >= edges[idx + 1]) {
+            idx++;
+        }
+        return idx;
+    }
+
+    private static int searchBin(double[] e, double v) {
+        return searchBin(e, 0, e.length - 2, v);
+    }
+
+    /**
+     * Largest bin index i in [lo, hi] with e[i] <= v (lo if none).
+     * The loop body is a single conditional move, no data-dependent branch.
+     */
+    private static int searchBin(double[] e, int lo, int hi, double v) {
+        int base = lo;
+        int n = hi - lo + 1;
+        while (n > 1) {
+            int half = n >>> 1;
+            base = (e[base + half] <= v) ? base + half : base;
+            n -= half;
+        }
+        return base;
+    }
+
+    private int rangeBin(double v) {
+        if (Double.isNaN(v)) {
+            return -1;
+        }
+        int idx = (int) ((v - first) / scale);
+        if (idx < 0 || idx >= numBins) {
+            // include max in last bin
+            return v == last ? numBins - 1 : -1;
+        }
+        return idx;
+    }
+
+    /** Original first-match rule, kept for unsorted edge arrays. */
+    private int linearBin(double v) {
+        for (int i = 0; i < numBins; i++) {
+            double left = edges[i];
+            double right = edges[i + 1];
+            if (v >= left && (v < right || (i == numBins - 1 && v <= right))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isAscending(double[] e) {
+        for (int i = 1; i < e.length; i++) {
+            if (!(e[i] >= e[i - 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Infinite end edges make width and tolerance infinite, so every edge would pass
+    private static boolean isUniform(double[] e, double width) {
+        if (!Double.isFinite(e[0]) || !Double.isFinite(e[e.length - 1])) {
+            return false;
+        }
+        double tol = width * UNIFORM_TOLERANCE;
+        for (int i = 1; i < e.length; i++) {
+            if (Math.abs(e[i] - (e[0] + i * width)) > tol) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
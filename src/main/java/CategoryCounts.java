@@ -0,0 +1,384 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Categorical counts by dictionary encoding: every distinct string gets an
+ * int code (in order of first appearance), each record is replaced by its
+ * code, and counts are kept per code in primitive arrays.
+ *
+ * Large inputs are encoded in parallel chunks. Each chunk builds its own
+ * small dictionary and int[] counts, with no shared state. The merge walks
+ * the chunk dictionaries in order, so it costs one lookup per distinct
+ * value per chunk rather than per record, and the codes come out the
+ * same as a serial pass. The chunks' codes are then remapped to the merged
+ * ones in parallel.
+ *
+ * The dictionary is an open-addressing table over String[] and int[], so
+ * a record costs one hashCode and usually one equals, with no boxing.
+ */
+final class CategoryCounts {
+
+    /** Inputs shorter than this are encoded on the calling thread. */
+    static final int PARALLEL_THRESHOLD = 1 << 17;
+
+    // Smallest chunk handed to a leaf task
+    private static final int MIN_CHUNK = 1 << 16;
+
+    // Leaf tasks per worker; kept low, since the merge cost grows with the chunk count
+    private static final int CHUNKS_PER_WORKER = 2;
+
+    /** Distinct values, indexed by code. */
+    final String[] categories;
+    /** counts[code]. */
+    final long[] counts;
+    /** Code of each record, -1 for null. */
+    final int[] codes;
+    /** Non-null records. */
+    final long total;
+    /** Null records, not counted in any category. */
+    final long missing;
+
+    private final Dictionary dictionary;
+
+    private CategoryCounts(Dictionary dictionary, long[] counts, int[] codes, long missing) {
+        this.dictionary = dictionary;
+        this.categories = Arrays.copyOf(dictionary.keys, dictionary.size);
+        this.counts = counts;
+        this.codes = codes;
+        long sum = 0;
+        for (long c : counts) {
+            sum += c;
+        }
+        this.total = sum;
+        this.missing = missing;
+    }
+
+    /** Encodes and counts values. */
+    static CategoryCounts encode(String[] values) {
+        int n = values.length;
+        int[] codes = new int[n];
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (n < PARALLEL_THRESHOLD || parallelism < 2) {
+            Chunk only = new Chunk(0, n);
+            only.encode(values, codes);
+            return new CategoryCounts(only.dictionary, toLong(only.counts), codes, only.missing);
+        }
+
+        int chunkSize = Math.max(MIN_CHUNK, n / (parallelism * CHUNKS_PER_WORKER));
+        Chunk[] chunks = new Chunk[(n + chunkSize - 1) / chunkSize];
+        for (int c = 0; c < chunks.length; c++) {
+            int from = c * chunkSize;
+            chunks[c] = new Chunk(from, Math.min(n, from + chunkSize));
+        }
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        pool.invoke(new ChunkTask(chunks, 0, chunks.length, chunk -> chunk.encode(values, codes)));
+
+        // Merge in chunk order, so codes follow first appearance in the whole input.
+        // The first chunk's dictionary is taken as is, so its codes need no remap.
+        Dictionary merged = chunks[0].dictionary;
+        long[] counts = toLong(chunks[0].counts);
+        long missing = chunks[0].missing;
+        for (int c = 1; c < chunks.length; c++) {
+            Chunk chunk = chunks[c];
+            int[] remap = new int[chunk.dictionary.size];
+            for (int local = 0; local < remap.length; local++) {
+                int code = merged.codeOf(chunk.dictionary.keys[local]);
+                if (code == counts.length) {
+                    counts = Arrays.copyOf(counts, Math.max(16, counts.length * 2));
+                }
+                counts[code] += chunk.counts[local];
+                remap[local] = code;
+            }
+            chunk.remap = remap;
+            missing += chunk.missing;
+        }
+        pool.invoke(new ChunkTask(chunks, 1, chunks.length, chunk -> chunk.remap(codes)));
+        return new CategoryCounts(merged, Arrays.copyOf(counts, merged.size), codes, missing);
+    }
+
+    int size() {
+        return categories.length;
+    }
+
+    /** Code of category, or -1 if it never occurs. */
+    int codeOf(String category) {
+        return dictionary.find(category);
+    }
+
+    long count(String category) {
+        int code = codeOf(category);
+        return code < 0 ? 0 : counts[code];
+    }
+
+    /** The k most frequent categories (ties in order of first appearance), and the rest as one bucket. */
+    static final class Top {
+        final List<String> categories;
+        final long[] counts;
+
+        private Top(List<String> categories, long[] counts) {
+            this.categories = categories;
+            this.counts = counts;
+        }
+    }
+
+    /**
+     * The k most frequent categories, most frequent first, then otherLabel
+     * with the sum of all remaining categories (only if there are any).
+     * Selection keeps a heap of k codes, so cost is size() * log k.
+     */
+    Top top(int k, String otherLabel) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Need k >= 1, got " + k);
+        }
+        int kept = Math.min(k, size());
+        // Min-heap of codes: the least frequent (latest on ties) kept category at the root
+        int[] heap = new int[kept];
+        int heapSize = 0;
+        for (int code = 0; code < size(); code++) {
+            if (heapSize < kept) {
+                heap[heapSize] = code;
+                siftUp(heap, heapSize++);
+            } else if (before(code, heap[0])) {
+                heap[0] = code;
+                siftDown(heap, heapSize);
+            }
+        }
+        // Pop the root repeatedly: least frequent first, filled in from the back
+        int[] order = new int[kept];
+        for (int i = kept - 1; i >= 0; i--) {
+            order[i] = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+        }
+
+        boolean hasOther = kept < size();
+        List<String> names = new ArrayList<>(kept + 1);
+        long[] topCounts = new long[hasOther ? kept + 1 : kept];
+        long keptTotal = 0;
+        for (int i = 0; i < kept; i++) {
+            names.add(categories[order[i]]);
+            topCounts[i] = counts[order[i]];
+            keptTotal += topCounts[i];
+        }
+        if (hasOther) {
+            names.add(otherLabel);
+            topCounts[kept] = total - keptTotal;
+        }
+        return new Top(names, topCounts);
+    }
+
+    // ----- Top-k heap, ordered by count, then code -----
+
+    /** True if code a ranks before code b: higher count, or same count and seen first. */
+    private boolean before(int a, int b) {
+        return counts[a] > counts[b] || (counts[a] == counts[b] && a < b);
+    }
+
+    private void siftUp(int[] heap, int i) {
+        int code = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(heap[parent], code)) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = code;
+    }
+
+    private void siftDown(int[] heap, int size) {
+        if (size == 0) {
+            return;
+        }
+        int code = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!before(code, heap[child])) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = code;
+    }
+
+    private static long[] toLong(int[] counts) {
+        long[] result = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            result[i] = counts[i];
+        }
+        return result;
+    }
+
+    // ----- Encoding -----
+
+    /** Records [from, to): their local dictionary, counts per local code, and the remap to merged codes. */
+    private static final class Chunk {
+        final int from;
+        final int to;
+        Dictionary dictionary;
+        int[] counts;
+        int missing;
+        int[] remap;
+
+        Chunk(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        void encode(String[] values, int[] codes) {
+            Dictionary dict = new Dictionary();
+            int[] c = new int[16];
+            int nulls = 0;
+            for (int i = from; i < to; i++) {
+                String v = values[i];
+                if (v == null) {
+                    codes[i] = -1;
+                    nulls++;
+                    continue;
+                }
+                int code = dict.codeOf(v);
+                if (code == c.length) {
+                    c = Arrays.copyOf(c, c.length * 2);
+                }
+                c[code]++;
+                codes[i] = code;
+            }
+            dictionary = dict;
+            counts = Arrays.copyOf(c, dict.size);
+            missing = nulls;
+        }
+
+        void remap(int[] codes) {
+            int[] r = remap;
+            for (int i = from; i < to; i++) {
+                int code = codes[i];
+                if (code >= 0) {
+                    codes[i] = r[code];
+                }
+            }
+        }
+    }
+
+    private interface ChunkAction {
+        void run(Chunk chunk);
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Chunk[] chunks;
+        private final int from;
+        private final int to;
+        private final ChunkAction action;
+
+        ChunkTask(Chunk[] chunks, int from, int to, ChunkAction action) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    action.run(chunks[from]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(chunks, from, mid, action),
+                      new ChunkTask(chunks, mid, to, action));
+        }
+    }
+
+    /** String -> code, codes assigned 0, 1, 2, ... in insertion order. */
+    private static final class Dictionary {
+        // Table slots hold code + 1 (0 = empty); kept at most half full
+        private int[] table = new int[32];
+        String[] keys = new String[16];
+        private int[] hashes = new int[16];
+        int size;
+
+        /** Code of key, added if absent. */
+        int codeOf(String key) {
+            int h = mix(key.hashCode());
+            int mask = table.length - 1;
+            int slot = h & mask;
+            while (true) {
+                int code = table[slot] - 1;
+                if (code < 0) {
+                    return add(key, h, slot);
+                }
+                if (hashes[code] == h && keys[code].equals(key)) {
+                    return code;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        /** Code of key, or -1. */
+        int find(String key) {
+            if (key == null) {
+                return -1;
+            }
+            int h = mix(key.hashCode());
+            int mask = table.length - 1;
+            for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+                int code = table[slot] - 1;
+                if (code < 0) {
+                    return -1;
+                }
+                if (hashes[code] == h && keys[code].equals(key)) {
+                    return code;
+                }
+            }
+        }
+
+        private int add(String key, int h, int slot) {
+            int code = size++;
+            if (code == keys.length) {
+                keys = Arrays.copyOf(keys, code * 2);
+                hashes = Arrays.copyOf(hashes, code * 2);
+            }
+            keys[code] = key;
+            hashes[code] = h;
+            table[slot] = code + 1;
+            if (size * 2 > table.length) {
+                rehash();
+            }
+            return code;
+        }
+
+        private void rehash() {
+            int[] t = new int[table.length * 2];
+            int mask = t.length - 1;
+            for (int code = 0; code < size; code++) {
+                int slot = hashes[code] & mask;
+                while (t[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                t[slot] = code + 1;
+            }
+            table = t;
+        }
+
+        // String hashes of similar keys differ mostly in the low bits; spread them
+        private static int mix(int h) {
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
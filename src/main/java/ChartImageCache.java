@@ -0,0 +1,254 @@
+import org.knowm.xchart.XYChart;
+import org.knowm.xchart.internal.chartpart.Chart;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Rasterized charts, keyed by chart identity, data version and pixel size,
+ * so a repeat view or export of an unchanged chart is a blit of the last
+ * rendering instead of a Java2D repaint.
+ *
+ * Each chart has a data version, bumped by invalidate(chart); whoever
+ * changes a chart's data or styling after it was shown must call it
+ * (LiveChart, AsyncChartPanel.chartChanged and LodXYSeries do). Images of
+ * older versions can never be returned again and are dropped right away.
+ *
+ * Entries are evicted least recently used first once their pixels
+ * (4 bytes each) exceed the budget. A cached chart stays reachable until
+ * its images are evicted or invalidated. Returned images are shared and
+ * must not be drawn on.
+ *
+ * Only charts without interactive overlays are cached (see isCacheable):
+ * tooltips, zoom and cursor draw into the chart on every repaint.
+ */
+final class ChartImageCache {
+
+    /** The cache used by MeteredChartPanel, AsyncChartPanel and BatchRenderer. */
+    static final ChartImageCache SHARED = new ChartImageCache(defaultBudget());
+
+    // Chart's protected size setters, to undo the resize in paint(g, width, height); null if unavailable
+    private static final MethodHandle SET_WIDTH = sizeSetter("setWidth");
+    private static final MethodHandle SET_HEIGHT = sizeSetter("setHeight");
+
+    private static final class Key {
+        final Chart<?, ?> chart;
+        final long version;
+        final int width;
+        final int height;
+
+        Key(Chart<?, ?> chart, long version, int width, int height) {
+            this.chart = chart;
+            this.version = version;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return chart == k.chart && version == k.version && width == k.width && height == k.height;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = System.identityHashCode(chart);
+            h = 31 * h + Long.hashCode(version);
+            h = 31 * h + width;
+            return 31 * h + height;
+        }
+    }
+
+    private final long budgetBytes;
+
+    // Access order, so iteration starts at the least recently used image
+    private final LinkedHashMap<Key, BufferedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Current data version per chart; weak, so charts never cached are not kept alive
+    private final Map<Chart<?, ?>, Long> versions = new WeakHashMap<>();
+
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    ChartImageCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /** Budget from -Dplotting.imageCache.mb, else an eighth of the max heap, at most 256 MB. */
+    private static long defaultBudget() {
+        long mb = Long.getLong("plotting.imageCache.mb", -1L);
+        if (mb >= 0) {
+            return mb << 20;
+        }
+        return Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 8);
+    }
+
+    /** True if chart paints the same pixels every time until its data changes. */
+    static boolean isCacheable(Chart<?, ?> chart) {
+        if (chart.getStyler().isToolTipsEnabled()) {
+            return false;
+        }
+        if (chart instanceof XYChart) {
+            XYChart xy = (XYChart) chart;
+            return !xy.getStyler().isZoomEnabled() && !xy.getStyler().isCursorEnabled();
+        }
+        return true;
+    }
+
+    /**
+     * The chart at width x height: the cached image if the chart has not
+     * changed since it was drawn, else a fresh rendering (cached if it fits
+     * the budget and the chart did not change meanwhile).
+     */
+    BufferedImage render(Chart<?, ?> chart, int width, int height) {
+        Key key;
+        synchronized (this) {
+            key = new Key(chart, versionOf(chart), width, height);
+            BufferedImage cached = images.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        // Paint outside the lock; two threads may race to draw the same key, which is harmless
+        BufferedImage image = rasterize(chart, width, height);
+
+        long size = 4L * width * height;
+        synchronized (this) {
+            if (size <= budgetBytes && key.version == versionOf(chart) && !images.containsKey(key)) {
+                images.put(key, image);
+                bytes += size;
+                evict();
+            }
+        }
+        return image;
+    }
+
+    /** A fresh, uncached rendering of chart at width x height, for one-off charts. */
+    static BufferedImage rasterize(Chart<?, ?> chart, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            ChartTelemetry.paint(chart, width, height, () -> paint(chart, g, width, height));
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * chart.paint(g, width, height), leaving the chart at its own size.
+     * XChart stores the paint size in the chart, which would otherwise
+     * resize it for every later panel, export and getWidth() caller. Holds
+     * the chart's lock, so two threads never lay out one chart at once.
+     */
+    static void paint(Chart<?, ?> chart, Graphics2D g, int width, int height) {
+        synchronized (chart) {
+            int ownWidth = chart.getWidth();
+            int ownHeight = chart.getHeight();
+            try {
+                chart.paint(g, width, height);
+            } finally {
+                if (width != ownWidth || height != ownHeight) {
+                    restoreSize(chart, ownWidth, ownHeight);
+                }
+            }
+        }
+    }
+
+    private static void restoreSize(Chart<?, ?> chart, int width, int height) {
+        if (SET_WIDTH != null && SET_HEIGHT != null) {
+            try {
+                SET_WIDTH.invokeExact(chart, width);
+                SET_HEIGHT.invokeExact(chart, height);
+                return;
+            } catch (Throwable t) {
+                throw new IllegalStateException("Could not restore the chart size", t);
+            }
+        }
+        // No access to the setters: paint once more at the chart's size, into a throwaway pixel
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scratch.createGraphics();
+        try {
+            chart.paint(g, width, height);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private static MethodHandle sizeSetter(String name) {
+        try {
+            return MethodHandles.privateLookupIn(Chart.class, MethodHandles.lookup())
+                    .findVirtual(Chart.class, name, MethodType.methodType(void.class, int.class))
+                    .asType(MethodType.methodType(void.class, Chart.class, int.class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /** Drops chart's images and bumps its data version; call after changing the chart. */
+    synchronized void invalidate(Chart<?, ?> chart) {
+        versions.put(chart, versionOf(chart) + 1);
+        Iterator<Map.Entry<Key, BufferedImage>> it = images.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, BufferedImage> e = it.next();
+            if (e.getKey().chart == chart) {
+                bytes -= sizeOf(e.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    synchronized void clear() {
+        images.clear();
+        bytes = 0;
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized long evictions() {
+        return evictions;
+    }
+
+    private long versionOf(Chart<?, ?> chart) {
+        Long v = versions.get(chart);
+        return v == null ? 0L : v;
+    }
+
+    private void evict() {
+        Iterator<BufferedImage> it = images.values().iterator();
+        while (bytes > budgetBytes && it.hasNext()) {
+            bytes -= sizeOf(it.next());
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private static long sizeOf(BufferedImage image) {
+        return 4L * image.getWidth() * image.getHeight();
+    }
+}
@@ -0,0 +1,92 @@
+// ChartLoadGenerator.java
+// Closed-loop load test for ChartServer on localhost.
+//
+// Usage: ChartLoadGenerator [url] [clients] [requests] [bodyFile]
+//   url       default http://127.0.0.1:8080/charts/hist-1-basic.png
+//   clients   concurrent clients, each sending its next request when the
+//             last one is answered (default 16)
+//   requests  total requests (default 2000)
+//   bodyFile  if given, POSTed as the body of every request
+//
+// Prints throughput and client-side latency percentiles; the server's own
+// view is at /stats.
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ChartLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://127.0.0.1:8080/charts/hist-1-basic.png");
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int total = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        byte[] body = args.length > 3 ? Files.readAllBytes(Paths.get(args[3])) : null;
+
+        ExecutorService pool = ChartServer.requestExecutor();
+        HttpClient client = HttpClient.newBuilder()
+                .executor(pool)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(120));
+        HttpRequest request = body == null
+                ? builder.GET().build()
+                : builder.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicInteger remaining = new AtomicInteger(total);
+        LongAdder bytes = new LongAdder();
+        LongAdder failed = new LongAdder();
+        LongAdder coalesced = new LongAdder();
+
+        System.out.printf("%s %s: %d clients, %d requests%n", request.method(), uri, clients, total);
+        long t0 = System.nanoTime();
+        List<Future<?>> running = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            running.add(pool.submit(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        latency.recordNanos(System.nanoTime() - start);
+                        bytes.add(response.body().length);
+                        if (response.statusCode() != 200) {
+                            failed.increment();
+                        }
+                        if (response.headers().firstValue("X-Coalesced").isPresent()) {
+                            coalesced.increment();
+                        }
+                    } catch (IOException e) {
+                        failed.increment();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : running) {
+            f.get();
+        }
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        pool.shutdown();
+
+        System.out.printf(Locale.ROOT, "%d requests in %.2f s: %.1f req/s, %.1f MB received%n",
+                latency.count(), seconds, latency.count() / seconds, bytes.sum() / 1048576.0);
+        System.out.printf(Locale.ROOT, "latency ms: mean %.2f, p50 %.2f, p90 %.2f, p99 %.2f, max %.2f%n",
+                latency.meanMicros() / 1e3, latency.percentileMicros(50) / 1e3,
+                latency.percentileMicros(90) / 1e3, latency.percentileMicros(99) / 1e3,
+                latency.maxMicros() / 1e3);
+        System.out.printf("failed %d, coalesced %d%n", failed.sum(), coalesced.sum());
+    }
+}
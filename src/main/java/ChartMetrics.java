@@ -0,0 +1,109 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Build and paint counters of one chart (or pipeline stage), registered
+ * with JMX by ChartTelemetry. Updates are lock-free; the "last" values
+ * are each individually current, not a consistent set.
+ */
+final class ChartMetrics implements ChartMetricsMBean {
+
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder buildNanos = new LongAdder();
+    private final LongAdder bytesAllocated = new LongAdder();
+    private final LongAdder paints = new LongAdder();
+    private final LongAdder paintNanos = new LongAdder();
+    private final LongAccumulator maxPaintNanos = new LongAccumulator(Math::max, 0L);
+
+    private volatile long lastBuildNanos;
+    private volatile int lastCharts;
+    private volatile int lastSeries;
+    private volatile long lastPoints;
+    private volatile int lastBins;
+    private volatile long lastBytesAllocated;
+    private volatile long lastPaintNanos;
+
+    void recordBuild(long nanos, int charts, int series, long points, int bins, long allocated) {
+        builds.increment();
+        buildNanos.add(nanos);
+        bytesAllocated.add(allocated);
+        lastBuildNanos = nanos;
+        lastCharts = charts;
+        lastSeries = series;
+        lastPoints = points;
+        lastBins = bins;
+        lastBytesAllocated = allocated;
+    }
+
+    void recordPaint(long nanos) {
+        paints.increment();
+        paintNanos.add(nanos);
+        maxPaintNanos.accumulate(nanos);
+        lastPaintNanos = nanos;
+    }
+
+    @Override
+    public long getBuilds() {
+        return builds.sum();
+    }
+
+    @Override
+    public double getTotalBuildMillis() {
+        return buildNanos.sum() / 1e6;
+    }
+
+    @Override
+    public double getLastBuildMillis() {
+        return lastBuildNanos / 1e6;
+    }
+
+    @Override
+    public int getLastCharts() {
+        return lastCharts;
+    }
+
+    @Override
+    public int getLastSeries() {
+        return lastSeries;
+    }
+
+    @Override
+    public long getLastPoints() {
+        return lastPoints;
+    }
+
+    @Override
+    public int getLastBins() {
+        return lastBins;
+    }
+
+    @Override
+    public long getTotalBytesAllocated() {
+        return bytesAllocated.sum();
+    }
+
+    @Override
+    public long getLastBytesAllocated() {
+        return lastBytesAllocated;
+    }
+
+    @Override
+    public long getPaints() {
+        return paints.sum();
+    }
+
+    @Override
+    public double getTotalPaintMillis() {
+        return paintNanos.sum() / 1e6;
+    }
+
+    @Override
+    public double getLastPaintMillis() {
+        return lastPaintNanos / 1e6;
+    }
+
+    @Override
+    public double getMaxPaintMillis() {
+        return maxPaintNanos.get() / 1e6;
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * JMX view of one chart's ChartMetrics (public, as JMX requires).
+ * Times are in milliseconds; totals are since startup.
+ */
+public interface ChartMetricsMBean {
+
+    long getBuilds();
+
+    double getTotalBuildMillis();
+
+    double getLastBuildMillis();
+
+    int getLastCharts();
+
+    int getLastSeries();
+
+    long getLastPoints();
+
+    int getLastBins();
+
+    long getTotalBytesAllocated();
+
+    long getLastBytesAllocated();
+
+    long getPaints();
+
+    double getTotalPaintMillis();
+
+    double getLastPaintMillis();
+
+    double getMaxPaintMillis();
+}
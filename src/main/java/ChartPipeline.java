@@ -0,0 +1,155 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs chart-building steps concurrently, each step starting as soon as
+ * the steps it depends on have finished.
+ *
+ * Steps are added as named stages; a stage with dependencies receives
+ * their results as arguments. Stages start when added, on a bounded pool
+ * of daemon threads (idle threads exit after a second, so an unused
+ * pipeline costs nothing). Callers join the stages they need, e.g. before
+ * handing a chart to Swing.
+ *
+ * Determinism is up to the steps: each must depend only on its inputs
+ * (and its own fixed-seed RNG), never on shared mutable state.
+ */
+final class ChartPipeline {
+
+    /** One step; its result is available through join() or future(). */
+    static final class Stage<T> {
+        final String name;
+        private CompletableFuture<T> future;
+        private volatile long startNanos;
+        private volatile long endNanos;
+
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        CompletableFuture<T> future() {
+            return future;
+        }
+
+        /** Waits for the result; a failure in this stage or a dependency is rethrown unchecked. */
+        T join() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+
+        /** Run time of the stage itself (not the wait for dependencies); NaN until done. */
+        double millis() {
+            long end = endNanos;
+            return end == 0 ? Double.NaN : (end - startNanos) / 1e6;
+        }
+
+        private <R> R timed(Supplier<R> task) {
+            startNanos = System.nanoTime();
+            try {
+                return ChartTelemetry.build(name, task);
+            } finally {
+                endNanos = System.nanoTime();
+            }
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final List<Stage<?>> stages = new ArrayList<>();
+    private final long createdNanos = System.nanoTime();
+
+    ChartPipeline() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    ChartPipeline(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "chart-pipeline-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** A stage with no dependencies. */
+    synchronized <T> Stage<T> add(String name, Supplier<? extends T> task) {
+        Stage<T> stage = new Stage<>(name);
+        stage.future = CompletableFuture.supplyAsync(() -> stage.timed(task), executor);
+        stages.add(stage);
+        return stage;
+    }
+
+    /** A stage that runs once dependency has completed, with its result. */
+    synchronized <A, T> Stage<T> add(String name, Stage<A> dependency, Function<? super A, ? extends T> task) {
+        Stage<T> stage = new Stage<>(name);
+        stage.future = dependency.future.thenApplyAsync(a -> stage.timed(() -> task.apply(a)), executor);
+        stages.add(stage);
+        return stage;
+    }
+
+    /** A stage that runs once both dependencies have completed. */
+    synchronized <A, B, T> Stage<T> add(String name,
+                                        Stage<A> first,
+                                        Stage<B> second,
+                                        BiFunction<? super A, ? super B, ? extends T> task) {
+        Stage<T> stage = new Stage<>(name);
+        stage.future = first.future.thenCombineAsync(second.future,
+                (a, b) -> stage.timed(() -> task.apply(a, b)), executor);
+        stages.add(stage);
+        return stage;
+    }
+
+    /** Waits for every stage added so far; the first failure is rethrown. */
+    void joinAll() {
+        List<Stage<?>> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(stages);
+        }
+        for (Stage<?> stage : snapshot) {
+            stage.join();
+        }
+    }
+
+    /** Waits for every stage, then stops the worker threads; no stage can be added afterwards. */
+    void shutdown() {
+        try {
+            joinAll();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /** Per-stage run times, plus wall time since the pipeline was created. */
+    synchronized void printTimings(PrintStream out) {
+        double sum = 0.0;
+        for (Stage<?> stage : stages) {
+            out.printf("  %-28s %8.1f ms%n", stage.name, stage.millis());
+            if (!Double.isNaN(stage.millis())) {
+                sum += stage.millis();
+            }
+        }
+        out.printf("  %d stages: summed %.1f ms, wall %.1f ms%n",
+                stages.size(), sum, (System.nanoTime() - createdNanos) / 1e6);
+    }
+}
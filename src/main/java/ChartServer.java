@@ -0,0 +1,612 @@
+// ChartServer.java
+// Embedded HTTP service that renders the LinePlots / Histograms examples, or
+// posted data, to PNG or SVG on demand, for processes that should not embed
+// Swing.
+//
+// Usage: ChartServer [port] [renderThreads]
+//   port           default 8080 (loopback only)
+//   renderThreads  charts rendered at once (default: number of cores)
+//
+// Endpoints:
+//   GET  /charts                          names of the example charts
+//   GET  /charts/<name>.png|svg           an example (names as BatchRenderer writes them)
+//   POST /render/line.png|svg             body: "x,y" or "y" per line
+//   POST /render/histogram.png|svg        body: numbers; ?bins=N (default FD)
+//   GET  /stats                           latency percentiles per route
+// PNG requests take ?width=&height= (default: the size the chart was
+// built at); all renders take ?title= for posted data.
+//
+// Requests run on virtual threads when the JDK has them (21+), else on a
+// cached pool. Rendering is bounded by a semaphore of renderThreads
+// permits; a request that waits longer than RENDER_WAIT_SECONDS gets 503.
+// Identical requests that arrive while one is being rendered share its
+// result instead of rendering again. Example charts are built once and
+// their bitmaps come from ChartImageCache; posted charts are drawn fresh
+// and never cached. Load-test with ChartLoadGenerator.
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.knowm.xchart.VectorGraphicsEncoder;
+import org.knowm.xchart.internal.chartpart.Chart;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ChartServer {
+
+    /** Longest a request waits for a render permit before it gets 503. */
+    static final int RENDER_WAIT_SECONDS = 30;
+
+    // Largest PNG side and posted body accepted
+    private static final int MAX_PIXELS = 4096;
+    private static final int MAX_BODY_BYTES = 64 << 20;
+
+    /** An example chart and the size it was built at, the default for its renders. */
+    private static final class Example {
+        final Chart<?, ?> chart;
+        final int width;
+        final int height;
+
+        Example(Chart<?, ?> chart) {
+            this.chart = chart;
+            this.width = chart.getWidth();
+            this.height = chart.getHeight();
+        }
+    }
+
+    /** A finished response; shared by all requests coalesced onto it. */
+    private static final class Response {
+        final int status;
+        final String contentType;
+        final byte[] body;
+        /** True if this request joined another's render. */
+        final boolean coalesced;
+
+        Response(int status, String contentType, byte[] body) {
+            this(status, contentType, body, false);
+        }
+
+        private Response(int status, String contentType, byte[] body, boolean coalesced) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+            this.coalesced = coalesced;
+        }
+
+        Response shared() {
+            return new Response(status, contentType, body, true);
+        }
+
+        static Response text(int status, String text) {
+            return new Response(status, "text/plain; charset=utf-8", text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /** A request that can be answered with a status other than 200. */
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+
+    private final HttpServer http;
+    private final ExecutorService requests;
+    private final Semaphore renderPermits;
+    private final Map<String, BatchRenderer.Job> jobs = new LinkedHashMap<>();
+
+    // Example charts by job name, built on first request
+    private final Map<String, CompletableFuture<List<Example>>> built = new ConcurrentHashMap<>();
+
+    // Responses being computed, by request key; later identical requests wait on them
+    private final Map<String, CompletableFuture<Response>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    private ChartServer(HttpServer http, ExecutorService requests, int renderThreads) {
+        this.http = http;
+        this.requests = requests;
+        this.renderPermits = new Semaphore(renderThreads, true);
+        List<BatchRenderer.Job> all = new ArrayList<>();
+        all.addAll(LinePlots.batchJobs());
+        all.addAll(Histograms.batchJobs());
+        for (BatchRenderer.Job job : all) {
+            jobs.put(job.name, job);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        // Must be set before the first AWT class is touched
+        System.setProperty("java.awt.headless", "true");
+
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int renderThreads = args.length > 1
+                ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+
+        ChartServer server = start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), renderThreads);
+        InetSocketAddress address = server.address();
+        System.out.printf("Chart server on http://%s:%d/ (%d render threads, %s)%n",
+                address.getHostString(), address.getPort(), renderThreads,
+                server.requests.getClass().getSimpleName());
+        System.out.println("  GET  /charts, /charts/<name>.png|svg, /stats");
+        System.out.println("  POST /render/line.png|svg, /render/histogram.png|svg");
+    }
+
+    /** Starts a server on address (port 0 picks a free one). */
+    static ChartServer start(InetSocketAddress address, int renderThreads) throws IOException {
+        // PNGs are encoded to memory; ImageIO's default temp-file cache only slows that down
+        ImageIO.setUseCache(false);
+        HttpServer http = HttpServer.create(address, 256);
+        ChartServer server = new ChartServer(http, requestExecutor(), Math.max(1, renderThreads));
+        http.createContext("/", server::handle);
+        http.setExecutor(server.requests);
+        http.start();
+        return server;
+    }
+
+    InetSocketAddress address() {
+        return http.getAddress();
+    }
+
+    void stop() {
+        http.stop(0);
+        requests.shutdown();
+    }
+
+    /**
+     * One virtual thread per request where available (JDK 21+), found by
+     * reflection since this builds for 17; otherwise a cached pool of
+     * daemon threads, which is what HttpServer would need anyway for
+     * requests that block on a render permit.
+     */
+    static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "chart-http-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    //  Dispatch
+    // -------------------------------------------------------------------------
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long t0 = System.nanoTime();
+        String route = "unknown";
+        Response response;
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+            if (path.equals("/charts") && method.equals("GET")) {
+                route = "GET /charts";
+                response = Response.text(200, String.join("\n", chartNames()) + "\n");
+            } else if (path.equals("/stats") && method.equals("GET")) {
+                route = "GET /stats";
+                response = Response.text(200, stats());
+            } else if (path.startsWith("/charts/") && method.equals("GET")) {
+                String file = path.substring("/charts/".length());
+                route = "GET /charts/*." + extension(file);
+                String key = "GET " + exchange.getRequestURI();
+                response = coalesce(key, () -> renderExample(file, query));
+            } else if (path.startsWith("/render/") && method.equals("POST")) {
+                String file = path.substring("/render/".length());
+                route = "POST /render/" + file;
+                byte[] body = readBody(exchange);
+                String key = "POST " + exchange.getRequestURI() + " " + sha256(body);
+                response = coalesce(key, () -> renderPosted(file, query, body));
+            } else {
+                response = Response.text(404, "Not found: " + method + " " + path + "\n");
+            }
+        } catch (HttpError e) {
+            response = Response.text(e.status, e.getMessage() + "\n");
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            response = Response.text(500, "Render failed: " + e + "\n");
+        }
+
+        if (response.status == 503) {
+            rejected.increment();
+        } else if (response.status >= 400) {
+            errors.increment();
+        }
+        try {
+            exchange.getResponseHeaders().set("Content-Type", response.contentType);
+            if (response.coalesced) {
+                exchange.getResponseHeaders().set("X-Coalesced", "true");
+            }
+            if (response.status == 503) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+            }
+            exchange.sendResponseHeaders(response.status, response.body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response.body);
+            }
+        } finally {
+            exchange.close();
+            latencies.computeIfAbsent(route, r -> new LatencyHistogram()).recordNanos(System.nanoTime() - t0);
+        }
+    }
+
+    private interface ResponseSupplier {
+        Response get();
+    }
+
+    /**
+     * Runs render for key unless an identical request is already running,
+     * in which case its response is shared. Failures are shared too, and
+     * the key is free again as soon as the first request finishes.
+     */
+    private Response coalesce(String key, ResponseSupplier render) {
+        CompletableFuture<Response> mine = new CompletableFuture<>();
+        CompletableFuture<Response> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return running.join().shared();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            Response response = render.get();
+            mine.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    //  Rendering
+    // -------------------------------------------------------------------------
+
+    private Response renderExample(String file, Map<String, String> query) {
+        String format = extension(file);
+        String name = file.substring(0, file.length() - format.length() - 1);
+        return withRenderPermit(() -> {
+            Example example = exampleChart(name);
+            // Example charts are shared by all requests, and painting is not thread-safe
+            synchronized (example.chart) {
+                return encode(example.chart, true, format, query, example.width, example.height);
+            }
+        });
+    }
+
+    private Response renderPosted(String file, Map<String, String> query, byte[] body) {
+        String format = extension(file);
+        String kind = file.substring(0, file.length() - format.length() - 1);
+        String text = new String(body, StandardCharsets.UTF_8);
+        return withRenderPermit(() -> {
+            // Filed under a fixed name: posted titles are arbitrary and would each get their own metrics
+            Chart<?, ?> chart = ChartTelemetry.build("posted-" + kind, () -> {
+                switch (kind) {
+                    case "line": {
+                        double[][] xy = parseXY(text);
+                        return LinePlots.createLineChart(query.getOrDefault("title", "Line"), xy[0], xy[1]);
+                    }
+                    case "histogram": {
+                        double[] data = parseNumbers(text);
+                        if (data.length == 0) {
+                            throw new HttpError(400, "No numbers in the request body");
+                        }
+                        int bins = intParam(query, "bins", 0, 0, 100_000);
+                        return Histograms.createHistogramChart(data, bins, query.getOrDefault("title", "Histogram"));
+                    }
+                    default:
+                        throw new HttpError(404, "Unknown chart kind '" + kind + "' (line, histogram)");
+                }
+            });
+            BatchRenderer.prepareForExport(chart);
+            // A posted chart is never requested again, so caching its image would only pin its data
+            return encode(chart, false, format, query, chart.getWidth(), chart.getHeight());
+        });
+    }
+
+    private Response withRenderPermit(ResponseSupplier render) {
+        boolean acquired;
+        try {
+            acquired = renderPermits.tryAcquire(RENDER_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpError(503, "Interrupted while waiting to render");
+        }
+        if (!acquired) {
+            return Response.text(503, "No render slot free within " + RENDER_WAIT_SECONDS + " s, retry later\n");
+        }
+        try {
+            return render.get();
+        } finally {
+            renderPermits.release();
+        }
+    }
+
+    /**
+     * chart as PNG (at ?width=&height=, default defaultWidth x defaultHeight)
+     * or SVG. PNGs are drawn by ChartImageCache, through the shared cache if
+     * cached is set, which leaves the chart's own size as it was.
+     */
+    private static Response encode(Chart<?, ?> chart, boolean cached, String format, Map<String, String> query,
+                                   int defaultWidth, int defaultHeight) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+            if (format.equals("png")) {
+                int width = intParam(query, "width", defaultWidth, 1, MAX_PIXELS);
+                int height = intParam(query, "height", defaultHeight, 1, MAX_PIXELS);
+                BufferedImage image = cached
+                        ? ChartImageCache.SHARED.render(chart, width, height)
+                        : ChartImageCache.rasterize(chart, width, height);
+                ImageIO.write(image, "png", out);
+                return new Response(200, "image/png", out.toByteArray());
+            }
+            if (format.equals("svg")) {
+                ChartTelemetry.paint(chart, chart.getWidth(), chart.getHeight(), () -> {
+                    try {
+                        VectorGraphicsEncoder.saveVectorGraphic(chart, out, VectorGraphicsEncoder.VectorGraphicsFormat.SVG);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                return new Response(200, "image/svg+xml", out.toByteArray());
+            }
+            throw new HttpError(400, "Unknown format '" + format + "' (png, svg)");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Example chart by BatchRenderer file name: the job name, plus "-i" for the i-th chart of a grid. */
+    private Example exampleChart(String name) {
+        BatchRenderer.Job job = jobs.get(name);
+        int index = 0;
+        if (job == null) {
+            int dash = name.lastIndexOf('-');
+            if (dash > 0) {
+                job = jobs.get(name.substring(0, dash));
+                try {
+                    index = Integer.parseInt(name.substring(dash + 1)) - 1;
+                } catch (NumberFormatException e) {
+                    job = null;
+                }
+            }
+        }
+        if (job == null) {
+            throw new HttpError(404, "Unknown chart '" + name + "'; see /charts");
+        }
+        List<Example> charts = build(job);
+        if (index < 0 || index >= charts.size()) {
+            throw new HttpError(404, "Chart '" + job.name + "' has " + charts.size() + " part(s)");
+        }
+        return charts.get(index);
+    }
+
+    private List<Example> build(BatchRenderer.Job job) {
+        CompletableFuture<List<Example>> mine = new CompletableFuture<>();
+        CompletableFuture<List<Example>> existing = built.putIfAbsent(job.name, mine);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            List<Example> examples = new ArrayList<>();
+            for (Chart<?, ?> chart : ChartTelemetry.build(job.name, job.factory)) {
+                BatchRenderer.prepareForExport(chart);
+                examples.add(new Example(chart));
+            }
+            mine.complete(examples);
+            return examples;
+        } catch (RuntimeException | Error e) {
+            // Let a later request try again
+            built.remove(job.name, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private List<String> chartNames() {
+        List<String> names = new ArrayList<>();
+        for (BatchRenderer.Job job : jobs.values()) {
+            CompletableFuture<List<Example>> charts = built.get(job.name);
+            int parts = charts != null && charts.isDone() && !charts.isCompletedExceptionally()
+                    ? charts.join().size() : 1;
+            if (parts == 1) {
+                names.add(job.name);
+            } else {
+                for (int i = 1; i <= parts; i++) {
+                    names.add(job.name + "-" + i);
+                }
+            }
+        }
+        return names;
+    }
+
+    // -------------------------------------------------------------------------
+    //  Stats
+    // -------------------------------------------------------------------------
+
+    private String stats() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-28s %8s %9s %9s %9s %9s %9s%n",
+                "route", "count", "mean ms", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        List<String> routes = new ArrayList<>(latencies.keySet());
+        routes.sort(null);
+        for (String route : routes) {
+            LatencyHistogram h = latencies.get(route);
+            sb.append(String.format(Locale.ROOT, "%-28s %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    route, h.count(), h.meanMicros() / 1e3,
+                    h.percentileMicros(50) / 1e3, h.percentileMicros(90) / 1e3,
+                    h.percentileMicros(99) / 1e3, h.maxMicros() / 1e3));
+        }
+        sb.append(String.format(Locale.ROOT,
+                "coalesced %d, rejected (503) %d, other errors %d, renders waiting %d%n",
+                coalesced.sum(), rejected.sum(), errors.sum(), renderPermits.getQueueLength()));
+        ChartImageCache cache = ChartImageCache.SHARED;
+        sb.append(String.format(Locale.ROOT, "image cache: %d hits, %d misses, %d evictions, %.1f MB%n",
+                cache.hits(), cache.misses(), cache.evictions(), cache.bytes() / 1048576.0));
+        return sb.toString();
+    }
+
+    // -------------------------------------------------------------------------
+    //  Request parsing
+    // -------------------------------------------------------------------------
+
+    private static String extension(String file) {
+        int dot = file.lastIndexOf('.');
+        if (dot < 1) {
+            throw new HttpError(400, "Missing .png or .svg in '" + file + "'");
+        }
+        return file.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String k = eq < 0 ? pair : pair.substring(0, eq);
+            String v = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(k, StandardCharsets.UTF_8), URLDecoder.decode(v, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static int intParam(Map<String, String> query, String name, int defaultValue, int min, int max) {
+        String v = query.get(name);
+        if (v == null) {
+            return defaultValue;
+        }
+        try {
+            int i = Integer.parseInt(v.trim());
+            if (i < min || i > max) {
+                throw new HttpError(400, name + " must be in [" + min + ", " + max + "], got " + i);
+            }
+            return i;
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, name + " is not an integer: '" + v + "'");
+        }
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new HttpError(413, "Body larger than " + (MAX_BODY_BYTES >> 20) + " MB");
+            }
+            return body;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** "x,y" (or whitespace / semicolon separated) rows, or one "y" per row with x = row number. */
+    private static double[][] parseXY(String text) {
+        double[] x = new double[1024];
+        double[] y = new double[1024];
+        int n = 0;
+        String[] lines = text.split("\r?\n");
+        for (int row = 0; row < lines.length; row++) {
+            String line = lines[row].trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] cells = line.split("[,;\\s]+");
+            double[] v;
+            try {
+                v = new double[]{Double.parseDouble(cells[0]), cells.length > 1 ? Double.parseDouble(cells[1]) : Double.NaN};
+            } catch (NumberFormatException e) {
+                if (n == 0) {
+                    continue; // header
+                }
+                throw new HttpError(400, "Line " + (row + 1) + " is not numeric: '" + line + "'");
+            }
+            if (n == x.length) {
+                x = Arrays.copyOf(x, 2 * n);
+                y = Arrays.copyOf(y, 2 * n);
+            }
+            x[n] = cells.length > 1 ? v[0] : n;
+            y[n] = cells.length > 1 ? v[1] : v[0];
+            n++;
+        }
+        if (n == 0) {
+            throw new HttpError(400, "No data rows in the request body");
+        }
+        return new double[][]{Arrays.copyOf(x, n), Arrays.copyOf(y, n)};
+    }
+
+    private static double[] parseNumbers(String text) {
+        String[] tokens = text.trim().split("[,;\\s]+");
+        double[] data = new double[tokens.length];
+        int n = 0;
+        for (String token : tokens) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            try {
+                data[n++] = Double.parseDouble(token);
+            } catch (NumberFormatException e) {
+                throw new HttpError(400, "Not a number: '" + token + "'");
+            }
+        }
+        return Arrays.copyOf(data, n);
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            StringBuilder sb = new StringBuilder(64);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 15, 16)).append(Character.forDigit(b & 15, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every JDK", e);
+        }
+    }
+}
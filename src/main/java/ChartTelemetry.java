@@ -0,0 +1,249 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.knowm.xchart.CategorySeries;
+import org.knowm.xchart.HeatMapSeries;
+import org.knowm.xchart.XYSeries;
+import org.knowm.xchart.internal.chartpart.Chart;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Build, binning and paint instrumentation, as JFR events and JMX counters.
+ *
+ * Every ChartPipeline stage is a build: its run time, the bytes its thread
+ * allocated, and (if it produced charts) their series, point and bin
+ * counts. ParallelBinCounter reports each counting pass, and the chart
+ * panels and BatchRenderer report each paint. Charts built by a stage are
+ * tagged with the stage name, so paints are filed under the same name.
+ *
+ * JFR events are only committed while a recording has them enabled
+ * (e.g. -XX:StartFlightRecording, or JDK Mission Control); otherwise they
+ * cost a flag check. The JMX counters are always on but are touched once
+ * per build or paint, never per sample. They appear as
+ * plotting:type=Chart,name=&lt;stage&gt; in jconsole / JMC.
+ */
+final class ChartTelemetry {
+
+    @Name("plotting.ChartBuild")
+    @Label("Chart Build")
+    @Category("Plotting")
+    @Description("A chart pipeline stage: data generation, binning and chart construction")
+    @StackTrace(false)
+    static final class BuildEvent extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Charts")
+        int charts;
+
+        @Label("Series")
+        int series;
+
+        @Label("Points")
+        long points;
+
+        @Label("Bins")
+        @Description("Categories of the first series of each category chart, or heat map cells")
+        int bins;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+    }
+
+    @Name("plotting.Binning")
+    @Label("Binning")
+    @Category("Plotting")
+    @Description("One histogram counting pass")
+    @StackTrace(false)
+    static final class BinningEvent extends Event {
+        @Label("Values")
+        long values;
+
+        @Label("Bins")
+        int bins;
+    }
+
+    @Name("plotting.ChartPaint")
+    @Label("Chart Paint")
+    @Category("Plotting")
+    @Description("Java2D painting of one chart, on screen or for export")
+    @StackTrace(false)
+    static final class PaintEvent extends Event {
+        @Label("Chart")
+        String chart;
+
+        @Label("Width")
+        int width;
+
+        @Label("Height")
+        int height;
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private static final Map<String, ChartMetrics> METRICS = new ConcurrentHashMap<>();
+
+    // Chart -> stage that built it; weak, so closed charts are not kept alive
+    private static final Map<Chart<?, ?>, String> NAMES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private ChartTelemetry() {
+    }
+
+    /** Runs a build step named stage, recording it. */
+    static <T> T build(String stage, Supplier<T> step) {
+        BuildEvent event = new BuildEvent();
+        long allocatedBefore = allocatedBytes();
+        long t0 = System.nanoTime();
+        event.begin();
+        T result = step.get();
+        event.end();
+        long nanos = System.nanoTime() - t0;
+        long allocated = Math.max(0, allocatedBytes() - allocatedBefore);
+
+        int charts = 0;
+        int series = 0;
+        long points = 0;
+        int bins = 0;
+        Collection<?> items = result instanceof Collection ? (Collection<?>) result : Collections.singleton(result);
+        for (Object item : items) {
+            if (!(item instanceof Chart)) {
+                continue;
+            }
+            Chart<?, ?> chart = (Chart<?, ?>) item;
+            NAMES.put(chart, stage);
+            charts++;
+            boolean firstCategorySeries = true;
+            for (Object s : chart.getSeriesMap().values()) {
+                series++;
+                if (s instanceof XYSeries) {
+                    points += ((XYSeries) s).getXData().length;
+                } else if (s instanceof HeatMapSeries) {
+                    int cells = ((HeatMapSeries) s).getHeatData().size();
+                    points += cells;
+                    bins += cells;
+                } else if (s instanceof CategorySeries) {
+                    int size = ((CategorySeries) s).getXData().size();
+                    points += size;
+                    if (firstCategorySeries) {
+                        bins += size;
+                        firstCategorySeries = false;
+                    }
+                }
+            }
+        }
+
+        metrics(stage).recordBuild(nanos, charts, series, points, bins, allocated);
+        if (event.shouldCommit()) {
+            event.stage = stage;
+            event.charts = charts;
+            event.series = series;
+            event.points = points;
+            event.bins = bins;
+            event.allocated = allocated;
+            event.commit();
+        }
+        return result;
+    }
+
+    /** Runs one counting pass of values samples into bins. */
+    static double[] binning(long values, int bins, Supplier<double[]> pass) {
+        return binning(values, counts -> bins, pass);
+    }
+
+    /** Runs one counting pass whose bin count is only known from its result. */
+    static <T> T binning(long values, ToIntFunction<? super T> binsOf, Supplier<T> pass) {
+        BinningEvent event = new BinningEvent();
+        event.begin();
+        T result = pass.get();
+        if (event.shouldCommit()) {
+            event.values = values;
+            event.bins = binsOf.applyAsInt(result);
+            event.commit();
+        }
+        return result;
+    }
+
+    /** Runs paint, which draws chart at width x height, recording it. */
+    static void paint(Chart<?, ?> chart, int width, int height, Runnable paint) {
+        PaintEvent event = new PaintEvent();
+        long t0 = System.nanoTime();
+        event.begin();
+        paint.run();
+        event.end();
+        long nanos = System.nanoTime() - t0;
+
+        String name = nameOf(chart);
+        metrics(name).recordPaint(nanos);
+        if (event.shouldCommit()) {
+            event.chart = name;
+            event.width = width;
+            event.height = height;
+            event.commit();
+        }
+    }
+
+    /** The stage that built chart, else its title. */
+    static String nameOf(Chart<?, ?> chart) {
+        String name = NAMES.get(chart);
+        if (name != null) {
+            return name;
+        }
+        String title = chart.getTitle();
+        return title == null || title.isEmpty() ? "untitled" : title;
+    }
+
+    private static ChartMetrics metrics(String name) {
+        ChartMetrics m = METRICS.get(name);
+        if (m != null) {
+            return m;
+        }
+        return METRICS.computeIfAbsent(name, ChartTelemetry::register);
+    }
+
+    private static ChartMetrics register(String name) {
+        ChartMetrics m = new ChartMetrics();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("plotting:type=Chart,name=" + ObjectName.quote(name));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(m, objectName);
+            }
+        } catch (JMException | RuntimeException e) {
+            // Counters still work without JMX (e.g. no management support)
+            System.err.println("Chart metrics for \"" + name + "\" not registered with JMX: " + e);
+        }
+        return m;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0L;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+        }
+        return null;
+    }
+}
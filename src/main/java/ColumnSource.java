@@ -0,0 +1,31 @@
+/**
+ * A column of doubles kept outside the heap or in a file (MappedColumn,
+ * OffHeapColumn, CsvColumnReader.column), which the Histograms builders
+ * bin without copying it into a double[].
+ */
+interface ColumnSource {
+
+    /** Receives consecutive values of the column copied into a reused buffer. */
+    interface ChunkConsumer {
+        void accept(double[] buffer, int from, int to);
+    }
+
+    /** Smallest non-NaN value (0 for an empty column). */
+    double min();
+
+    /** Largest non-NaN value (0 for an empty column). */
+    double max();
+
+    /** Counts of every value in indexer's bins. */
+    double[] count(BinIndexer indexer);
+
+    /** Streams the whole column, in order, through one reusable buffer. */
+    void forEachChunk(ChunkConsumer consumer);
+
+    /** QuantileSketch of every value. */
+    default QuantileSketch sketch() {
+        QuantileSketch sketch = new QuantileSketch();
+        forEachChunk(sketch::addAll);
+        return sketch;
+    }
+}
@@ -0,0 +1,505 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Streaming reader for numeric columns of a CSV / TSV file.
+ *
+ * The file is read as raw bytes through a fixed-size buffer and numbers are
+ * parsed straight from those bytes into reusable double[] chunk buffers
+ * (one per selected column), so no String is created for ordinary cells
+ * and heap use is flat no matter how large the file is. Only unusual cells
+ * (NaN, Infinity, quoted or very long numbers) fall back to
+ * Double.parseDouble. Empty, missing or unparsable cells become NaN.
+ * Quoted fields may contain the delimiter but not a line break.
+ *
+ * forEachChunkParallel splits the file into byte ranges aligned to line
+ * starts and parses them concurrently, one state object per range.
+ */
+final class CsvColumnReader {
+
+    static final int DEFAULT_CHUNK_ROWS = 1 << 14;
+
+    private static final int READ_BUFFER_BYTES = 1 << 20;
+
+    // Longest mantissa DecimalParser converts exactly
+    private static final int MAX_FAST_DIGITS = 19;
+
+    /**
+     * Receives up to chunkRows parsed rows; columns[slot][0 .. rows) are
+     * valid, one slot per selected column in selection order (see slotOf).
+     */
+    interface ChunkConsumer {
+        void accept(double[][] columns, int rows);
+    }
+
+    /** Folds parsed rows into a per-segment state object. */
+    interface ChunkAccumulator<T> {
+        void accept(T state, double[][] columns, int rows);
+    }
+
+    private final Path file;
+    private final byte delimiter;
+    private final boolean hasHeader;
+    private final int[] columns;
+    private final int chunkRows;
+
+    // slotOfField[f] = position of field f in columns, or -1 if not selected
+    private final int[] slotOfField;
+
+    CsvColumnReader(Path file, char delimiter, boolean hasHeader, int chunkRows, int... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("Select at least one column");
+        }
+        this.file = file;
+        this.delimiter = (byte) delimiter;
+        this.hasHeader = hasHeader;
+        this.columns = columns.clone();
+        this.chunkRows = chunkRows;
+
+        int maxField = 0;
+        for (int c : columns) {
+            if (c < 0) {
+                throw new IllegalArgumentException("Negative column index " + c);
+            }
+            maxField = Math.max(maxField, c);
+        }
+        this.slotOfField = new int[maxField + 1];
+        Arrays.fill(slotOfField, -1);
+        for (int s = 0; s < columns.length; s++) {
+            if (slotOfField[columns[s]] >= 0) {
+                throw new IllegalArgumentException("Column " + columns[s] + " selected twice");
+            }
+            slotOfField[columns[s]] = s;
+        }
+    }
+
+    static CsvColumnReader csv(Path file, boolean hasHeader, int... columns) {
+        return new CsvColumnReader(file, ',', hasHeader, DEFAULT_CHUNK_ROWS, columns);
+    }
+
+    static CsvColumnReader tsv(Path file, boolean hasHeader, int... columns) {
+        return new CsvColumnReader(file, '\t', hasHeader, DEFAULT_CHUNK_ROWS, columns);
+    }
+
+    /** Number of selected columns; chunk buffers are indexed 0 .. columnCount()-1. */
+    int columnCount() {
+        return columns.length;
+    }
+
+    /**
+     * Index into the chunk buffers of file column fileColumn (0-based, as
+     * passed to the constructor); consumers read it as columns[slotOf(c)].
+     */
+    int slotOf(int fileColumn) {
+        if (fileColumn < 0 || fileColumn >= slotOfField.length || slotOfField[fileColumn] < 0) {
+            throw new IllegalArgumentException("Column " + fileColumn + " is not read; selected columns are "
+                    + Arrays.toString(columns));
+        }
+        return slotOfField[fileColumn];
+    }
+
+    /**
+     * File column fileColumn (one of those selected) as a ColumnSource for
+     * the Histograms builders. Counting, range and sketch passes parse the
+     * file in parallel byte ranges and merge the per-range results; I/O
+     * errors surface as UncheckedIOException.
+     */
+    ColumnSource column(int fileColumn) {
+        return new Column(slotOf(fileColumn));
+    }
+
+    /** Parses the whole file in order on the calling thread. */
+    void forEachChunk(ChunkConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            new SegmentParser().parse(channel, 0, channel.size(), hasHeader, consumer);
+        }
+    }
+
+    /**
+     * Parses byte ranges of the file concurrently (one per available core).
+     * Each range gets its own state from stateFactory; the states are
+     * returned in file order for the caller to merge.
+     */
+    <T> List<T> forEachChunkParallel(Supplier<T> stateFactory,
+                                     ChunkAccumulator<T> accumulator) throws IOException {
+        return forEachChunkParallel(Runtime.getRuntime().availableProcessors(), stateFactory, accumulator);
+    }
+
+    <T> List<T> forEachChunkParallel(int segments,
+                                     Supplier<T> stateFactory,
+                                     ChunkAccumulator<T> accumulator) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = lineAlignedBounds(channel, Math.max(1, segments));
+            int n = bounds.length - 1;
+            List<T> states = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                states.add(stateFactory.get());
+            }
+            if (n == 1) {
+                T state = states.get(0);
+                new SegmentParser().parse(channel, bounds[0], bounds[1], hasHeader,
+                        (cols, rows) -> accumulator.accept(state, cols, rows));
+                return states;
+            }
+
+            ExecutorService pool = Executors.newFixedThreadPool(n);
+            try {
+                List<Future<?>> futures = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) {
+                    T state = states.get(i);
+                    long start = bounds[i];
+                    long end = bounds[i + 1];
+                    boolean skipHeader = hasHeader && i == 0;
+                    futures.add(pool.submit(() -> {
+                        try {
+                            new SegmentParser().parse(channel, start, end, skipHeader,
+                                    (cols, rows) -> accumulator.accept(state, cols, rows));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+                }
+                for (Future<?> f : futures) {
+                    f.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading " + file, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw new IOException("Failed to parse " + file, e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+            return states;
+        }
+    }
+
+    private final class Column implements ColumnSource {
+        private final int slot;
+
+        // Computed on first use (one pass), then reused by every plot of the column
+        private boolean rangeKnown;
+        private double min;
+        private double max;
+
+        Column(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public synchronized double min() {
+            computeRange();
+            return min;
+        }
+
+        @Override
+        public synchronized double max() {
+            computeRange();
+            return max;
+        }
+
+        private void computeRange() {
+            if (rangeKnown) {
+                return;
+            }
+            List<double[]> partial = parallel(() -> new double[]{Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY},
+                    (range, cols, rows) -> {
+                        double[] values = cols[slot];
+                        for (int i = 0; i < rows; i++) {
+                            if (values[i] < range[0]) range[0] = values[i];
+                            if (values[i] > range[1]) range[1] = values[i];
+                        }
+                    });
+            double mn = Double.POSITIVE_INFINITY;
+            double mx = Double.NEGATIVE_INFINITY;
+            for (double[] range : partial) {
+                mn = Math.min(mn, range[0]);
+                mx = Math.max(mx, range[1]);
+            }
+            min = mn <= mx ? mn : 0.0;
+            max = mn <= mx ? mx : 0.0;
+            rangeKnown = true;
+        }
+
+        @Override
+        public double[] count(BinIndexer indexer) {
+            List<double[]> partial = parallel(() -> new double[indexer.numBins()],
+                    (counts, cols, rows) -> indexer.countInto(cols[slot], 0, rows, counts));
+            double[] counts = new double[indexer.numBins()];
+            for (double[] p : partial) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += p[i];
+                }
+            }
+            return counts;
+        }
+
+        @Override
+        public void forEachChunk(ChunkConsumer consumer) {
+            try {
+                CsvColumnReader.this.forEachChunk((cols, rows) -> consumer.accept(cols[slot], 0, rows));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /** Per-range sketches merged together. */
+        @Override
+        public QuantileSketch sketch() {
+            QuantileSketch merged = new QuantileSketch();
+            for (QuantileSketch sketch : parallel(QuantileSketch::new,
+                    (sketch, cols, rows) -> sketch.addAll(cols[slot], 0, rows))) {
+                merged.merge(sketch);
+            }
+            return merged;
+        }
+
+        private <T> List<T> parallel(Supplier<T> stateFactory, ChunkAccumulator<T> accumulator) {
+            try {
+                return forEachChunkParallel(stateFactory, accumulator);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /** Splits [0, size) into up to n ranges that each start at a line start. */
+    private static long[] lineAlignedBounds(FileChannel channel, int n) throws IOException {
+        long size = channel.size();
+        long[] bounds = new long[n + 1];
+        int count = 1;
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (int i = 1; i < n; i++) {
+            long pos = Math.max(bounds[count - 1], size * i / n);
+            long lineStart = -1;
+            while (lineStart < 0 && pos < size) {
+                probe.clear();
+                int read = channel.read(probe, pos);
+                if (read <= 0) {
+                    break;
+                }
+                for (int j = 0; j < read; j++) {
+                    if (probe.get(j) == '\n') {
+                        lineStart = pos + j + 1;
+                        break;
+                    }
+                }
+                pos += read;
+            }
+            if (lineStart > bounds[count - 1] && lineStart < size) {
+                bounds[count++] = lineStart;
+            }
+        }
+        bounds[count++] = size;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    // ----- Parsing -----
+
+    /** Per-thread parser: one read buffer and one set of chunk buffers. */
+    private final class SegmentParser {
+        private byte[] buf = new byte[READ_BUFFER_BYTES];
+        private final double[][] out = new double[columns.length][chunkRows];
+        private int rows;
+
+        void parse(FileChannel channel,
+                   long start,
+                   long end,
+                   boolean skipFirstLine,
+                   ChunkConsumer consumer) throws IOException {
+            long pos = start;
+            int len = 0;
+            boolean skip = skipFirstLine;
+
+            while (true) {
+                if (pos < end) {
+                    int want = (int) Math.min(buf.length - len, end - pos);
+                    int read = channel.read(ByteBuffer.wrap(buf, len, want), pos);
+                    if (read < 0) {
+                        end = pos;
+                    } else {
+                        pos += read;
+                        len += read;
+                    }
+                }
+                boolean last = pos >= end;
+
+                int lineStart = 0;
+                for (int i = 0; i < len; i++) {
+                    if (buf[i] == '\n') {
+                        if (skip) {
+                            skip = false;
+                        } else {
+                            parseLine(lineStart, i, consumer);
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+
+                if (last) {
+                    // Final line without a trailing newline
+                    if (lineStart < len && !skip) {
+                        parseLine(lineStart, len, consumer);
+                    }
+                    break;
+                }
+
+                // Keep the partial line; grow only for lines longer than the buffer
+                int remaining = len - lineStart;
+                if (remaining == buf.length) {
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                } else {
+                    System.arraycopy(buf, lineStart, buf, 0, remaining);
+                }
+                len = remaining;
+            }
+
+            if (rows > 0) {
+                consumer.accept(out, rows);
+                rows = 0;
+            }
+        }
+
+        private void parseLine(int from, int to, ChunkConsumer consumer) {
+            if (to > from && buf[to - 1] == '\r') {
+                to--;
+            }
+            if (to == from) {
+                return; // blank line
+            }
+
+            for (double[] column : out) {
+                column[rows] = Double.NaN;
+            }
+
+            // A delimiter between quotes is part of the field; "" toggles twice
+            int field = 0;
+            int fieldStart = from;
+            boolean quoted = false;
+            for (int i = from; i <= to && field < slotOfField.length; i++) {
+                if (i == to || (!quoted && buf[i] == delimiter)) {
+                    int slot = slotOfField[field];
+                    if (slot >= 0) {
+                        out[slot][rows] = parseNumber(fieldStart, i);
+                    }
+                    field++;
+                    fieldStart = i + 1;
+                } else if (buf[i] == '"') {
+                    quoted = !quoted;
+                }
+            }
+
+            if (++rows == chunkRows) {
+                consumer.accept(out, rows);
+                rows = 0;
+            }
+        }
+
+        /** Parses buf[from, to) as a double without creating a String when possible. */
+        private double parseNumber(int from, int to) {
+            byte[] b = buf;
+            while (from < to && b[from] == ' ') from++;
+            while (to > from && b[to - 1] == ' ') to--;
+            if (from == to) {
+                return Double.NaN;
+            }
+
+            int i = from;
+            boolean negative = false;
+            if (b[i] == '-' || b[i] == '+') {
+                negative = b[i] == '-';
+                i++;
+            }
+
+            long mantissa = 0;
+            int significant = 0;
+            int exp10 = 0;
+            int digitsStart = i;
+            int d;
+            while (i < to && (d = b[i] - '0') >= 0 && d <= 9) {
+                if (mantissa != 0 || d != 0) significant++;
+                mantissa = mantissa * 10 + d;
+                i++;
+            }
+            boolean anyDigit = i > digitsStart;
+            if (i < to && b[i] == '.') {
+                int fractionStart = ++i;
+                while (i < to && (d = b[i] - '0') >= 0 && d <= 9) {
+                    if (mantissa != 0 || d != 0) significant++;
+                    mantissa = mantissa * 10 + d;
+                    i++;
+                }
+                exp10 = fractionStart - i;
+                anyDigit |= i > fractionStart;
+            }
+            if (anyDigit && i < to && (b[i] == 'e' || b[i] == 'E')) {
+                i++;
+                boolean expNegative = false;
+                if (i < to && (b[i] == '-' || b[i] == '+')) {
+                    expNegative = b[i] == '-';
+                    i++;
+                }
+                int exp = 0;
+                int expStart = i;
+                while (i < to && (d = b[i] - '0') >= 0 && d <= 9 && exp < 10_000) {
+                    exp = exp * 10 + d;
+                    i++;
+                }
+                if (i == expStart) {
+                    anyDigit = false;
+                }
+                exp10 += expNegative ? -exp : exp;
+            }
+
+            if (anyDigit && i == to && significant <= MAX_FAST_DIGITS) {
+                double v = DecimalParser.toDouble(mantissa, exp10, negative);
+                if (v == v) {
+                    return v;
+                }
+            }
+            return parseSlow(from, to);
+        }
+
+        private double parseSlow(int from, int to) {
+            String s = new String(buf, from, to - from, StandardCharsets.ISO_8859_1).trim();
+            if (s.length() >= 2 && s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"') {
+                s = s.substring(1, s.length() - 1).trim();
+            }
+            try {
+                return Double.parseDouble(s);
+            } catch (NumberFormatException e) {
+                return parseSpecial(s);
+            }
+        }
+
+        /** inf, infinity or nan in any case and with an optional sign; NaN for anything else. */
+        private double parseSpecial(String s) {
+            String t = s.toLowerCase(Locale.ROOT);
+            boolean negative = t.startsWith("-");
+            if (negative || t.startsWith("+")) {
+                t = t.substring(1);
+            }
+            if (t.equals("inf") || t.equals("infinity")) {
+                return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            }
+            return Double.NaN;
+        }
+    }
+}
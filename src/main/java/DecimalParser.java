@@ -0,0 +1,146 @@
+import java.math.BigInteger;
+
+/**
+ * Correctly rounded conversion of a decimal mantissa and power of ten to a
+ * double, without going through a String.
+ *
+ * Two exact paths are tried:
+ *   - Clinger's fast path, when the mantissa and 10^|e| are exact doubles
+ *   - the Eisel-Lemire algorithm for up to 19 significant digits, using a
+ *     128-bit approximation of 5^q
+ * Both give the same result as Double.parseDouble. When neither can decide
+ * (subnormals, huge exponents, rare near-halfway cases) NaN is returned and
+ * the caller falls back to Double.parseDouble.
+ */
+final class DecimalParser {
+
+    private static final int MIN_EXP10 = -342;
+    private static final int MAX_EXP10 = 308;
+
+    // Exact powers of ten (10^22 is the largest exact double)
+    private static final double[] POW10 = new double[23];
+
+    // 128-bit truncated/rounded-up 5^q, normalized so the top bit is set
+    private static final long[] POW5_HIGH = new long[MAX_EXP10 - MIN_EXP10 + 1];
+    private static final long[] POW5_LOW = new long[MAX_EXP10 - MIN_EXP10 + 1];
+
+    static {
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10.0;
+        }
+
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        BigInteger five = BigInteger.valueOf(5);
+        for (int q = MIN_EXP10; q <= MAX_EXP10; q++) {
+            BigInteger c;
+            if (q >= 0) {
+                c = five.pow(q);
+                int bits = c.bitLength();
+                c = bits <= 128 ? c.shiftLeft(128 - bits) : c.shiftRight(bits - 128);
+            } else {
+                BigInteger power5 = five.pow(-q);
+                int z = power5.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                while (c.compareTo(two128) >= 0) {
+                    c = c.shiftRight(1);
+                }
+            }
+            POW5_HIGH[q - MIN_EXP10] = c.shiftRight(64).longValue();
+            POW5_LOW[q - MIN_EXP10] = c.and(mask64).longValue();
+        }
+    }
+
+    private DecimalParser() {
+    }
+
+    /**
+     * mantissa (unsigned, at most 19 decimal digits) * 10^exp10, correctly
+     * rounded, or NaN if the fast paths cannot decide.
+     */
+    static double toDouble(long mantissa, int exp10, boolean negative) {
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+
+        // Clinger: one correctly rounded multiply or divide of two exact values
+        if (mantissa > 0 && mantissa <= (1L << 53) && Math.abs(exp10) < POW10.length) {
+            double v = mantissa;
+            v = exp10 < 0 ? v / POW10[-exp10] : v * POW10[exp10];
+            return negative ? -v : v;
+        }
+
+        if (exp10 < MIN_EXP10 || exp10 > MAX_EXP10) {
+            return Double.NaN;
+        }
+        return eiselLemire(mantissa, exp10, negative);
+    }
+
+    private static double eiselLemire(long w, int q, boolean negative) {
+        int index = q - MIN_EXP10;
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+
+        long upper = multiplyHighUnsigned(w, POW5_HIGH[index]);
+        long lower = w * POW5_HIGH[index];
+
+        // The truncated 5^q may be off in the low bits: refine with the next 64 bits
+        if ((upper & 0x1FF) == 0x1FF && Long.compareUnsigned(lower + w, lower) < 0) {
+            long productLow = w * POW5_LOW[index];
+            long productMiddle2 = multiplyHighUnsigned(w, POW5_LOW[index]);
+            long productMiddle = lower + productMiddle2;
+            long productHigh = upper;
+            if (Long.compareUnsigned(productMiddle, lower) < 0) {
+                productHigh++;
+            }
+            if (productMiddle + 1 == 0
+                    && (productHigh & 0x1FF) == 0x1FF
+                    && Long.compareUnsigned(productLow + w, productLow) < 0) {
+                return Double.NaN;
+            }
+            upper = productHigh;
+            lower = productMiddle;
+        }
+
+        int upperBit = (int) (upper >>> 63);
+        long mantissa = upper >>> (upperBit + 9);
+        lz += 1 ^ upperBit;
+
+        // Exactly halfway between two doubles: let the slow path break the tie
+        if (lower == 0 && (upper & 0x1FF) == 0 && (mantissa & 3) == 1) {
+            return Double.NaN;
+        }
+
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (1L << 53)) {
+            mantissa = 1L << 52;
+            lz--;
+        }
+        mantissa &= ~(1L << 52);
+
+        // floor(q * log2(10)) + 1023 + 64 - lz
+        long exponent = ((217706L * q) >> 16) + 1087 - lz;
+        if (exponent < 1 || exponent > 2046) {
+            return Double.NaN;
+        }
+        long bits = mantissa | (exponent << 52) | (negative ? 1L << 63 : 0L);
+        return Double.longBitsToDouble(bits);
+    }
+
+    /** High 64 bits of the unsigned 128-bit product a * b. */
+    private static long multiplyHighUnsigned(long a, long b) {
+        long aLo = a & 0xFFFFFFFFL;
+        long aHi = a >>> 32;
+        long bLo = b & 0xFFFFFFFFL;
+        long bHi = b >>> 32;
+        long loLo = aLo * bLo;
+        long hiLo = aHi * bLo;
+        long loHi = aLo * bHi;
+        long hiHi = aHi * bHi;
+        long cross = (loLo >>> 32) + (hiLo & 0xFFFFFFFFL) + loHi;
+        return hiHi + (hiLo >>> 32) + (cross >>> 32);
+    }
+}
@@ -0,0 +1,175 @@
+import org.knowm.xchart.HeatMapChart;
+import org.knowm.xchart.HeatMapChartBuilder;
+
+import java.awt.Color;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bivariate histogram: counts of (x[i], y[i]) pairs on an X-by-Y grid of
+ * bins, the 2D counterpart of Histograms.HistogramData.
+ *
+ * Each axis is a BinIndexer (equal bins over a range, or explicit edges),
+ * so bin assignment is exactly that of the 1D builders; a pair is counted
+ * when both coordinates map to a bin. Counts live in one flat row-major
+ * double[] (y bin major), counted in parallel chunks by
+ * ParallelBinCounter. Cost is one pass over the pairs; memory is a few
+ * grids per worker, independent of the number of pairs.
+ */
+final class Histogram2D {
+
+    // Axis labels shown per heat map axis, at most
+    private static final int MAX_LABELS = 16;
+
+    final double[] xEdges;
+    final double[] yEdges;
+    // counts[yBin * xBins() + xBin]
+    final double[] counts;
+    final double totalCount;
+
+    private Histogram2D(double[] xEdges, double[] yEdges, double[] counts) {
+        this.xEdges = xEdges;
+        this.yEdges = yEdges;
+        this.counts = counts;
+        double sum = 0.0;
+        for (double c : counts) {
+            sum += c;
+        }
+        this.totalCount = sum;
+    }
+
+    /** xBins by yBins equal bins over [xMin, xMax] x [yMin, yMax]. */
+    static Histogram2D uniform(double[] x, double[] y,
+                               double xMin, double xMax, int xBins,
+                               double yMin, double yMax, int yBins) {
+        return count(x, y,
+                uniformEdges(xMin, xMax, xBins), BinIndexer.forRange(xMin, xMax, xBins),
+                uniformEdges(yMin, yMax, yBins), BinIndexer.forRange(yMin, yMax, yBins));
+    }
+
+    /** Bins between consecutive edges on each axis. */
+    static Histogram2D withEdges(double[] x, double[] y, double[] xEdges, double[] yEdges) {
+        if (xEdges.length < 2 || yEdges.length < 2) {
+            throw new IllegalArgumentException("Need at least two edges per axis");
+        }
+        return count(x, y,
+                xEdges.clone(), BinIndexer.forEdges(xEdges),
+                yEdges.clone(), BinIndexer.forEdges(yEdges));
+    }
+
+    private static Histogram2D count(double[] x, double[] y,
+                                     double[] xEdges, BinIndexer xIndexer,
+                                     double[] yEdges, BinIndexer yIndexer) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("x and y lengths differ: " + x.length + " vs " + y.length);
+        }
+        int xBins = xEdges.length - 1;
+        int yBins = yEdges.length - 1;
+        long cells = (long) xBins * yBins;
+        if (cells > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Grid too large: " + xBins + " x " + yBins);
+        }
+        double[] counts = ParallelBinCounter.count(x.length, (int) cells, (from, to, c) -> {
+            for (int i = (int) from; i < to; i++) {
+                int bx = xIndexer.indexOf(x[i]);
+                if (bx < 0) {
+                    continue;
+                }
+                int by = yIndexer.indexOf(y[i]);
+                if (by >= 0) {
+                    c[by * xBins + bx] += 1.0;
+                }
+            }
+        });
+        return new Histogram2D(xEdges, yEdges, counts);
+    }
+
+    private static double[] uniformEdges(double min, double max, int bins) {
+        if (bins < 1) {
+            throw new IllegalArgumentException("Need at least one bin, got " + bins);
+        }
+        double width = (max - min) / bins;
+        double[] edges = new double[bins + 1];
+        for (int i = 0; i < bins; i++) {
+            edges[i] = min + i * width;
+        }
+        edges[bins] = max;
+        return edges;
+    }
+
+    int xBins() {
+        return xEdges.length - 1;
+    }
+
+    int yBins() {
+        return yEdges.length - 1;
+    }
+
+    double count(int xBin, int yBin) {
+        return counts[yBin * xBins() + xBin];
+    }
+
+    /** Cell counts divided by total count and cell area (integrates to 1). */
+    double[] density() {
+        double[] d = new double[counts.length];
+        if (totalCount == 0.0) {
+            return d;
+        }
+        int xBins = xBins();
+        for (int by = 0; by < yBins(); by++) {
+            double dy = yEdges[by + 1] - yEdges[by];
+            for (int bx = 0; bx < xBins; bx++) {
+                double area = (xEdges[bx + 1] - xEdges[bx]) * dy;
+                d[by * xBins + bx] = counts[by * xBins + bx] / (totalCount * area);
+            }
+        }
+        return d;
+    }
+
+    /**
+     * A heat map of the counts, one cell per bin, labelled with some of
+     * the bin centers (formatted with decimalPattern). Building it boxes
+     * one value per cell, so cost follows the grid size, not the number of
+     * pairs.
+     */
+    HeatMapChart toHeatMap(String title, String xAxisTitle, String yAxisTitle, String decimalPattern) {
+        HeatMapChart chart = new HeatMapChartBuilder()
+                .width(1000)
+                .height(800)
+                .title(title)
+                .xAxisTitle(xAxisTitle)
+                .yAxisTitle(yAxisTitle)
+                .build();
+        chart.getStyler().setPlotContentSize(1.0);
+        chart.getStyler().setShowValue(false);
+        chart.getStyler().setRangeColors(new Color[]{
+                new Color(255, 255, 255), new Color(120, 170, 220), new Color(30, 60, 140), new Color(10, 10, 40)});
+
+        int xBins = xBins();
+        int yBins = yBins();
+        List<String> xCenters = centerLabels(xEdges, decimalPattern);
+        List<String> yCenters = centerLabels(yEdges, decimalPattern);
+        List<Number[]> heat = new ArrayList<>(counts.length);
+        for (int by = 0; by < yBins; by++) {
+            for (int bx = 0; bx < xBins; bx++) {
+                heat.add(new Number[]{bx, by, counts[by * xBins + bx]});
+            }
+        }
+        chart.addSeries("counts", xCenters, yCenters, heat);
+        return chart;
+    }
+
+    // Bin-center labels for about MAX_LABELS bins, blank (" ": XChart rejects empty labels)
+    // for the rest, so dense grids stay readable
+    private static List<String> centerLabels(double[] edges, String decimalPattern) {
+        int bins = edges.length - 1;
+        int stride = Math.max(1, (bins + MAX_LABELS - 1) / MAX_LABELS);
+        DecimalFormat format = new DecimalFormat(decimalPattern);
+        List<String> labels = new ArrayList<>(bins);
+        for (int i = 0; i < bins; i++) {
+            labels.add(i % stride == 0 ? format.format((edges[i] + edges[i + 1]) / 2.0) : " ");
+        }
+        return labels;
+    }
+}
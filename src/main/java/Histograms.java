@@ -2,15 +2,16 @@ import org.knowm.xchart.CategoryChart;
 import org.knowm.xchart.CategoryChartBuilder;
 import org.knowm.xchart.CategorySeries;
 import org.knowm.xchart.CategorySeries.CategorySeriesRenderStyle;
-import org.knowm.xchart.XChartPanel;
+import org.knowm.xchart.HeatMapChart;
 
 import javax.swing.*;
 import java.awt.BorderLayout;
+import java.awt.Dimension;
 import java.awt.GridLayout;
 import java.util.*;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.DoubleStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.random.RandomGenerator.SplittableGenerator;
 
 /**
  *
@@ -21,10 +22,11 @@ import java.util.stream.DoubleStream;
  * 5) Categorical histogram (string categories)
  * 6) Overlaid normalized histograms (probability)
  * 7) Histogram normalized to PDF + theoretical normal PDF
+ * 8) 2D histogram (heat map) of correlated bivariate normal pairs
  *
  * GUI:
  *   - Single JFrame
- *   - JTabbedPane with one tab per "example"
+ *   - JTabbedPane with one tab per "example", each built on first use
  *   - Example 2 tab contains a 2x3 grid of small charts (subplots)
  *
  * Notes:
@@ -32,12 +34,17 @@ import java.util.stream.DoubleStream;
  */
 public class Histograms {
 
-    // Global RNG with fixed seed for reproducibility
-    private static final Random RNG = new Random(0L);
+    // Each example draws from its own RNG seeded with SEED + example number,
+    // so its data does not depend on which examples ran before or beside it
+    private static final long SEED = 0L;
+
+    // From this size on, FD quartiles come from a one-pass QuantileSketch
+    // instead of a sorted copy of the data
+    private static final int FD_SKETCH_THRESHOLD = 1 << 20;
 
     // ----- Small container for histogram data -----
 
-    private static final class HistogramData {
+    static final class HistogramData {
         final double[] binCenters;
         final double[] binCounts;
         final double[] binWidths;
@@ -58,42 +65,78 @@ public class Histograms {
     // ----- MAIN -----
 
     public static void main(String[] args) {
-        // Precompute all charts BEFORE starting Swing
-
-        CategoryChart hist1 = createHistogram1();
-        List<CategoryChart> hist2Charts = createHistogram2BinningComparisonCharts();
-        CategoryChart hist3 = createHistogram3();
-        CategoryChart hist4 = createHistogram4();
-        CategoryChart hist5 = createHistogram5Categorical();
-        CategoryChart hist6 = createHistogram6OverlaidProbability();
-        CategoryChart hist7 = createHistogram7PdfOverlay();
-
+        long startNanos = System.nanoTime();
+
+        // All examples compute concurrently; example 2's six rule charts
+        // wait for their shared, pre-sorted sample
+        ChartPipeline pipeline = new ChartPipeline();
+        ChartPipeline.Stage<CategoryChart> hist1 = pipeline.add("1: basic", Histograms::createHistogram1);
+        ChartPipeline.Stage<PreparedDataset> hist2Data = pipeline.add("2: sample", Histograms::prepareHistogram2Data);
+        ChartPipeline.Stage<List<CategoryChart>> hist2 = pipeline.add("2: binning rules", hist2Data,
+                Histograms::createHistogram2BinningComparisonCharts);
+        ChartPipeline.Stage<CategoryChart> hist3 = pipeline.add("3: 50 bins", Histograms::createHistogram3);
+        ChartPipeline.Stage<CategoryChart> hist4 = pipeline.add("4: custom edges", Histograms::createHistogram4);
+        ChartPipeline.Stage<CategoryChart> hist5 = pipeline.add("5: categorical", Histograms::createHistogram5Categorical);
+        ChartPipeline.Stage<CategoryChart> hist6 = pipeline.add("6: overlaid", Histograms::createHistogram6OverlaidProbability);
+        ChartPipeline.Stage<CategoryChart> hist7 = pipeline.add("7: pdf overlay", Histograms::createHistogram7PdfOverlay);
+        ChartPipeline.Stage<HeatMapChart> hist8 = pipeline.add("8: 2D histogram", Histograms::createHistogram8Bivariate);
+
+        // Each tab joins its own stage before its chart is handed to Swing
+        // (see LazyTabs), so the frame does not wait for all seven examples
         SwingUtilities.invokeLater(() -> {
             JFrame frame = new JFrame("Java_Plot - Histograms");
             frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
             frame.setLayout(new BorderLayout());
 
             JTabbedPane tabs = new JTabbedPane();
+            // Largest charts (examples 4 and 5) are 1600x900
+            LazyTabs lazyTabs = new LazyTabs(tabs, new Dimension(1600, 900));
 
-            tabs.addTab("1: Basic N(0,1)", new XChartPanel<>(hist1));
-            tabs.addTab("2: Binning rules (2x3)", createBinningGridPanel(hist2Charts));
-            tabs.addTab("3: 50 bins", new XChartPanel<>(hist3));
-            tabs.addTab("4: Custom edges", new XChartPanel<>(hist4));
-            tabs.addTab("5: Categorical", new XChartPanel<>(hist5));
-            tabs.addTab("6: Overlaid (probability)", new XChartPanel<>(hist6));
-            tabs.addTab("7: Hist + Normal PDF", new XChartPanel<>(hist7));
+            lazyTabs.addTab("1: Basic N(0,1)", hist1::join, MeteredChartPanel::new);
+            lazyTabs.addTab("2: Binning rules (2x3)", hist2::join, Histograms::createBinningGridPanel);
+            lazyTabs.addTab("3: 50 bins", hist3::join, MeteredChartPanel::new);
+            lazyTabs.addTab("4: Custom edges", hist4::join, MeteredChartPanel::new);
+            lazyTabs.addTab("5: Categorical", hist5::join, MeteredChartPanel::new);
+            lazyTabs.addTab("6: Overlaid (probability)", hist6::join, MeteredChartPanel::new);
+            lazyTabs.addTab("7: Hist + Normal PDF", hist7::join, MeteredChartPanel::new);
+            lazyTabs.addTab("8: 2D histogram", hist8::join, MeteredChartPanel::new);
+
+            lazyTabs.reportStartupTimes(frame, startNanos);
 
             frame.add(tabs, BorderLayout.CENTER);
             frame.pack();
             frame.setLocationRelativeTo(null);
             frame.setVisible(true);
+            lazyTabs.start();
         });
+
+        if (Boolean.getBoolean("plotting.timings")) {
+            CompletableFuture.runAsync(() -> {
+                pipeline.joinAll();
+                System.out.println("Chart pipeline:");
+                pipeline.printTimings(System.out);
+            });
+        }
+    }
+
+    /** Every example, for headless export with BatchRenderer. */
+    static List<BatchRenderer.Job> batchJobs() {
+        List<BatchRenderer.Job> jobs = new ArrayList<>();
+        jobs.add(BatchRenderer.Job.of("hist-1-basic", Histograms::createHistogram1));
+        jobs.add(BatchRenderer.Job.ofList("hist-2-binning-rules", Histograms::createHistogram2BinningComparisonCharts));
+        jobs.add(BatchRenderer.Job.of("hist-3-50-bins", Histograms::createHistogram3));
+        jobs.add(BatchRenderer.Job.of("hist-4-custom-edges", Histograms::createHistogram4));
+        jobs.add(BatchRenderer.Job.of("hist-5-categorical", Histograms::createHistogram5Categorical));
+        jobs.add(BatchRenderer.Job.of("hist-6-overlaid", Histograms::createHistogram6OverlaidProbability));
+        jobs.add(BatchRenderer.Job.of("hist-7-pdf-overlay", Histograms::createHistogram7PdfOverlay));
+        jobs.add(BatchRenderer.Job.of("hist-8-bivariate", Histograms::createHistogram8Bivariate));
+        return jobs;
     }
 
     // ----- Example 1: Simple histogram, automatic binning -----
 
     private static CategoryChart createHistogram1() {
-        double[] x1 = randn(10_000, 0.0, 1.0);
+        PreparedDataset x1 = PreparedDataset.of(randn(rng(1), 10_000, 0.0, 1.0));
 
         // Use Freedman–Diaconis as a decent "automatic" bin estimate
         int numBins = fdBinCount(x1);
@@ -109,9 +152,7 @@ public class Histograms {
         chart.getStyler().setXAxisDecimalPattern("0.00");
         chart.getStyler().setYAxisDecimalPattern("0"); // counts are integers
 
-        List<Double> x = DoubleStream.of(h.binCenters).boxed().collect(Collectors.toList());
-        List<Double> y = DoubleStream.of(h.binCounts).boxed().collect(Collectors.toList());
-        chart.addSeries("N(0,1)", x, y);
+        addPrimitiveSeries(chart, "N(0,1)", h.binCenters, h.binCounts);
 
         return chart;
     }
@@ -119,14 +160,25 @@ public class Histograms {
     // ----- Example 2: Compare binning algorithms (2x3 grid of charts) -----
 
     private static List<CategoryChart> createHistogram2BinningComparisonCharts() {
-        double[] x2 = randn(10_000, 0.0, 1.0);
+        return createHistogram2BinningComparisonCharts(prepareHistogram2Data());
+    }
+
+    /** Sample shared by the six rule charts: one stats pass, sorted once for FD. */
+    private static PreparedDataset prepareHistogram2Data() {
+        PreparedDataset x2 = PreparedDataset.of(randn(rng(2), 10_000, 0.0, 1.0));
+        x2.sorted();
+        return x2;
+    }
+
+    private static List<CategoryChart> createHistogram2BinningComparisonCharts(PreparedDataset x2) {
+        int fdBins = fdBinCount(x2);
 
         List<CategoryChart> charts = new ArrayList<>(6);
 
         // Automatic -> here we simply use the FD rule as the "automatic" choice
         charts.add(createHistogramForBins(
                 x2,
-                fdBinCount(x2),
+                fdBins,
                 "Automatic (FD rule)"
         ));
 
@@ -140,13 +192,13 @@ public class Histograms {
         // Freedman–Diaconis rule explicitly
         charts.add(createHistogramForBins(
                 x2,
-                fdBinCount(x2),
+                fdBins,
                 "Freedman–Diaconis rule"
         ));
 
         // Integers rule: bins on integer boundaries
         double[] intEdges = integerEdges(x2);
-        HistogramData hIntegers = histogramWithCustomEdges(x2, intEdges);
+        HistogramData hIntegers = histogramWithCustomEdges(x2.data(), intEdges);
         charts.add(createHistogramChartFromData(
                 hIntegers,
                 "Integers rule",
@@ -172,7 +224,7 @@ public class Histograms {
         return charts;
     }
 
-    private static CategoryChart createHistogramForBins(double[] data, int numBins, String title) {
+    private static CategoryChart createHistogramForBins(PreparedDataset data, int numBins, String title) {
         HistogramData h = uniformBinHistogram(data, numBins);
         return createHistogramChartFromData(
                 h,
@@ -183,10 +235,12 @@ public class Histograms {
         );
     }
 
+    // Six charts repainting on every resize step would stall the EDT, so
+    // the grid rasterizes off it (see AsyncChartPanel)
     private static JPanel createBinningGridPanel(List<CategoryChart> charts) {
         JPanel panel = new JPanel(new GridLayout(2, 3));
         for (CategoryChart chart : charts) {
-            panel.add(new XChartPanel<>(chart));
+            panel.add(new AsyncChartPanel(chart));
         }
         return panel;
     }
@@ -194,7 +248,7 @@ public class Histograms {
     // ----- Example 3: Change number of bins (final state: 50 bins) -----
 
     private static CategoryChart createHistogram3() {
-        double[] x3 = randn(1_000, 0.0, 1.0);
+        PreparedDataset x3 = PreparedDataset.of(randn(rng(3), 1_000, 0.0, 1.0));
 
         int numBins = 50; // directly show the final state with 50 bins
         HistogramData h = uniformBinHistogram(x3, numBins);
@@ -213,7 +267,7 @@ public class Histograms {
     // ----- Example 4: Custom bin edges + count-density normalization -----
 
     private static CategoryChart createHistogram4() {
-        double[] x4 = randn(10_000, 0.0, 1.0);
+        double[] x4 = randn(rng(4), 10_000, 0.0, 1.0);
 
         double[] edges = {
                 -10.0000, -2.0000, -1.7500, -1.5000, -1.2500,
@@ -242,9 +296,7 @@ public class Histograms {
         chart.getStyler().setXAxisDecimalPattern("0.00");
         chart.getStyler().setYAxisDecimalPattern("0.00");
 
-        List<Double> x = DoubleStream.of(h.binCenters).boxed().collect(Collectors.toList());
-        List<Double> y = DoubleStream.of(heights).boxed().collect(Collectors.toList());
-        chart.addSeries("Custom edges", x, y);
+        addPrimitiveSeries(chart, "Custom edges", h.binCenters, heights);
 
         return chart;
     }
@@ -259,17 +311,13 @@ public class Histograms {
                 "no", "no", "yes", "yes", "yes", "yes"
         };
 
-        Map<String, Integer> counts = new LinkedHashMap<>();
-        for (String r : responses) {
-            counts.merge(r, 1, Integer::sum);
+        // Dictionary-encoded counts, most frequent category first
+        CategoryCounts.Top top = CategoryCounts.encode(responses).top(10, "other");
+        double[] y = new double[top.counts.length];
+        for (int i = 0; i < y.length; i++) {
+            y[i] = top.counts[i];
         }
 
-        // Fix category order: no, yes, undecided (to be explicit)
-        List<String> categories = Arrays.asList("no", "yes", "undecided");
-        List<Integer> y = categories.stream()
-                .map(c -> counts.getOrDefault(c, 0))
-                .collect(Collectors.toList());
-
         CategoryChart chart = new CategoryChartBuilder()
                 .width(1600)
                 .height(900)
@@ -279,31 +327,22 @@ public class Histograms {
                 .build();
 
         chart.getStyler().setLegendVisible(false);
+        chart.getStyler().setYAxisDecimalPattern("0");
 
-        chart.addSeries("Responses", categories, y);
+        chart.addSeries("Responses", top.categories, new DoubleArrayList(y));
         return chart;
     }
 
     // ----- Example 6: Overlaid normalized histograms (probability) -----
 
     private static CategoryChart createHistogram6OverlaidProbability() {
-        double[] x5 = randn(2_000, 0.0, 1.0);
-        double[] y5 = randn(5_000, 1.0, 1.0);
-
-        double globalMin = Math.min(min(x5), min(y5));
-        double globalMax = Math.max(max(x5), max(y5));
+        SplittableGenerator rng = rng(6);
+        double[] x5 = randn(rng, 2_000, 0.0, 1.0);
+        double[] y5 = randn(rng, 5_000, 1.0, 1.0);
 
-        double binWidth = 0.25;
-        HistogramData hX = histogramWithBinWidth(x5, globalMin, globalMax, binWidth);
-        HistogramData hY = histogramWithBinWidth(y5, globalMin, globalMax, binWidth);
-
-        double[] probX = new double[hX.binCounts.length];
-        double[] probY = new double[hY.binCounts.length];
-
-        for (int i = 0; i < probX.length; i++) {
-            probX[i] = hX.binCounts[i] / hX.totalCount;
-            probY[i] = hY.binCounts[i] / hY.totalCount;
-        }
+        // Both samples on one shared 0.25-wide grid, counted and ranged in one job
+        MultiHistogram h = MultiHistogram.withBinWidth(new double[][]{x5, y5}, 0.25, 0.0);
+        MultiHistogram.Normalized[] normalized = h.normalize();
 
         CategoryChart chart = new CategoryChartBuilder()
                 .width(1200)
@@ -318,12 +357,8 @@ public class Histograms {
         chart.getStyler().setXAxisDecimalPattern("0.0");
         chart.getStyler().setYAxisDecimalPattern("0.00");
 
-        List<Double> centers = DoubleStream.of(hX.binCenters).boxed().collect(Collectors.toList());
-        List<Double> yProbX = DoubleStream.of(probX).boxed().collect(Collectors.toList());
-        List<Double> yProbY = DoubleStream.of(probY).boxed().collect(Collectors.toList());
-
-        chart.addSeries("N(0,1)", centers, yProbX);
-        chart.addSeries("N(1,1)", centers, yProbY);
+        addPrimitiveSeries(chart, "N(0,1)", h.binCenters, normalized[0].probability);
+        addPrimitiveSeries(chart, "N(1,1)", h.binCenters, normalized[1].probability);
 
         return chart;
     }
@@ -334,7 +369,7 @@ public class Histograms {
         double mu = 5.0;
         double sigma = 2.0;
 
-        double[] x6 = randn(5_000, mu, sigma);
+        double[] x6 = randn(rng(7), 5_000, mu, sigma);
 
         double rangeMin = -5.0;
         double rangeMax = 15.0;
@@ -367,12 +402,8 @@ public class Histograms {
         chart.getStyler().setXAxisDecimalPattern("0.0");
         chart.getStyler().setYAxisDecimalPattern("0.000");
 
-        List<Double> centers = DoubleStream.of(h.binCenters).boxed().collect(Collectors.toList());
-        List<Double> yEmp = DoubleStream.of(pdfEmpirical).boxed().collect(Collectors.toList());
-        List<Double> yTh = DoubleStream.of(pdfTheoretical).boxed().collect(Collectors.toList());
-
-        CategorySeries empSeries = chart.addSeries("Empirical PDF", centers, yEmp);
-        CategorySeries pdfSeries = chart.addSeries("Normal PDF", centers, yTh);
+        CategorySeries empSeries = addPrimitiveSeries(chart, "Empirical PDF", h.binCenters, pdfEmpirical);
+        CategorySeries pdfSeries = addPrimitiveSeries(chart, "Normal PDF", h.binCenters, pdfTheoretical);
 
         // Bars for empirical, line for theoretical PDF
         empSeries.setChartCategorySeriesRenderStyle(CategorySeriesRenderStyle.Bar);
@@ -381,6 +412,23 @@ public class Histograms {
         return chart;
     }
 
+    // ----- Example 8: 2D histogram of correlated bivariate normal pairs -----
+
+    private static HeatMapChart createHistogram8Bivariate() {
+        // x ~ N(0,1), y = rho * x + sqrt(1 - rho^2) * N(0,1): corr(x, y) = rho
+        SplittableGenerator rng = rng(8);
+        int n = 2_000_000;
+        double rho = 0.6;
+        double[] x = randn(rng, n, 0.0, 1.0);
+        double[] y = randn(rng, n, 0.0, Math.sqrt(1.0 - rho * rho));
+        for (int i = 0; i < n; i++) {
+            y[i] += rho * x[i];
+        }
+
+        Histogram2D h = Histogram2D.uniform(x, y, -4.0, 4.0, 40, -4.0, 4.0, 40);
+        return h.toHeatMap("2D histogram: 2M bivariate normal pairs (rho = 0.6)", "x", "y", "0.0");
+    }
+
     // ----- Utility: Create a basic histogram chart skeleton -----
 
     private static CategoryChart createEmptyHistogramChart(String title,
@@ -400,6 +448,16 @@ public class Histograms {
         return chart;
     }
 
+    /**
+     * A histogram of data with numBins equal bins (Freedman–Diaconis if
+     * numBins < 1), for data from outside (ChartServer).
+     */
+    static CategoryChart createHistogramChart(double[] data, int numBins, String title) {
+        PreparedDataset prepared = PreparedDataset.of(data);
+        int bins = numBins >= 1 ? numBins : fdBinCount(prepared);
+        return createHistogramChartFromData(uniformBinHistogram(prepared, bins), title, "Value", "Frequency", "0.00");
+    }
+
     private static CategoryChart createHistogramChartFromData(HistogramData h,
                                                               String title,
                                                               String xAxisTitle,
@@ -417,47 +475,56 @@ public class Histograms {
         chart.getStyler().setXAxisDecimalPattern(xDecimalPattern);
         chart.getStyler().setYAxisDecimalPattern("0"); // integer counts by default
 
-        List<Double> x = DoubleStream.of(h.binCenters).boxed().collect(Collectors.toList());
-        List<Double> y = DoubleStream.of(h.binCounts).boxed().collect(Collectors.toList());
-        chart.addSeries("data", x, y);
+        addPrimitiveSeries(chart, "data", h.binCenters, h.binCounts);
 
         return chart;
     }
 
-    // ----- Utility: random normal -----
+    // ----- Utility: primitive series adapter (no boxed copies) -----
 
-    private static double[] randn(int n, double mean, double stdDev) {
-        double[] data = new double[n];
-        for (int i = 0; i < n; i++) {
-            data[i] = mean + stdDev * RNG.nextGaussian();
+    /**
+     * Read-only List view over a double[].
+     * CategoryChart keeps the lists it is given, so handing it this view
+     * avoids building a List<Double> (one Double object per bin) up front.
+     */
+    private static final class DoubleArrayList extends AbstractList<Double> implements RandomAccess {
+        private final double[] values;
+
+        DoubleArrayList(double[] values) {
+            this.values = values;
         }
-        return data;
-    }
 
-    // ----- Utility: basic stats -----
+        @Override
+        public Double get(int index) {
+            return values[index];
+        }
 
-    private static double min(double[] data) {
-        return Arrays.stream(data).min().orElse(0.0);
+        @Override
+        public int size() {
+            return values.length;
+        }
     }
 
-    private static double max(double[] data) {
-        return Arrays.stream(data).max().orElse(0.0);
+    private static CategorySeries addPrimitiveSeries(CategoryChart chart,
+                                                     String seriesName,
+                                                     double[] x,
+                                                     double[] y) {
+        return chart.addSeries(seriesName, new DoubleArrayList(x), new DoubleArrayList(y));
     }
 
-    private static double mean(double[] data) {
-        return Arrays.stream(data).average().orElse(0.0);
+    // ----- Utility: random normal -----
+
+    private static SplittableGenerator rng(int example) {
+        return ParallelRandom.create(SEED + example);
     }
 
-    private static double stdDev(double[] data) {
-        double m = mean(data);
-        double sumSq = 0.0;
-        for (double v : data) {
-            double d = v - m;
-            sumSq += d * d;
-        }
-        return Math.sqrt(sumSq / (data.length - 1));
+    /** Ziggurat normals, filled in parallel; the same for a given rng state on any core count. */
+    private static double[] randn(SplittableGenerator rng, int n, double mean, double stdDev) {
+        return ParallelRandom.normal(rng, n, mean, stdDev);
     }
 
+    // ----- Utility: basic stats -----
+
     private static double percentile(double[] sorted, double p) {
         if (sorted.length == 0) return Double.NaN;
         double pos = p / 100.0 * (sorted.length - 1);
@@ -473,18 +540,36 @@ public class Histograms {
     // ----- Utility: binning algorithms -----
 
     /** Freedman–Diaconis bin count (used as "automatic" and explicitly). */
-    private static int fdBinCount(double[] data) {
-        double[] copy = data.clone();
-        Arrays.sort(copy);
-        double q1 = percentile(copy, 25.0);
-        double q3 = percentile(copy, 75.0);
+    private static int fdBinCount(PreparedDataset data) {
+        if (!data.hasSortedView() && data.size() >= FD_SKETCH_THRESHOLD) {
+            return fdBinCount(QuantileSketch.of(data.data()));
+        }
+        double[] sorted = data.sorted();
+        double q1 = percentile(sorted, 25.0);
+        double q3 = percentile(sorted, 75.0);
         double iqr = q3 - q1;
         if (iqr <= 0.0 || Double.isNaN(iqr)) {
             return sqrtBinCount(data);
         }
-        int n = data.length;
+        int n = data.size();
+        double h = 2.0 * iqr * Math.pow(n, -1.0 / 3.0);
+        double range = data.max() - data.min();
+        int bins = (int) Math.round(range / h);
+        if (bins < 5) bins = 5;
+        if (bins > 100) bins = 100;
+        return bins;
+    }
+
+    /** Freedman–Diaconis bin count from a sketch (streamed, chunked or merged data). */
+    static int fdBinCount(QuantileSketch sketch) {
+        double[] quartiles = sketch.quantiles(0.25, 0.75);
+        double iqr = quartiles[1] - quartiles[0];
+        long n = sketch.count();
+        if (iqr <= 0.0 || Double.isNaN(iqr)) {
+            return sqrtBinCount(n);
+        }
         double h = 2.0 * iqr * Math.pow(n, -1.0 / 3.0);
-        double range = copy[copy.length - 1] - copy[0];
+        double range = sketch.max() - sketch.min();
         int bins = (int) Math.round(range / h);
         if (bins < 5) bins = 5;
         if (bins > 100) bins = 100;
@@ -492,16 +577,14 @@ public class Histograms {
     }
 
     /** Scott's rule for bin count. */
-    private static int scottBinCount(double[] data) {
-        double sigma = stdDev(data);
+    private static int scottBinCount(PreparedDataset data) {
+        double sigma = data.stdDev();
         if (sigma == 0.0 || Double.isNaN(sigma)) {
             return sqrtBinCount(data);
         }
-        int n = data.length;
+        int n = data.size();
         double h = 3.5 * sigma * Math.pow(n, -1.0 / 3.0);
-        double min = min(data);
-        double max = max(data);
-        double range = max - min;
+        double range = data.max() - data.min();
         int bins = (int) Math.round(range / h);
         if (bins < 5) bins = 5;
         if (bins > 100) bins = 100;
@@ -509,8 +592,8 @@ public class Histograms {
     }
 
     /** Sturges' rule for bin count. */
-    private static int sturgesBinCount(double[] data) {
-        int n = data.length;
+    private static int sturgesBinCount(PreparedDataset data) {
+        int n = data.size();
         int bins = (int) Math.ceil(Math.log(n) / Math.log(2.0) + 1.0);
         if (bins < 5) bins = 5;
         if (bins > 100) bins = 100;
@@ -518,17 +601,21 @@ public class Histograms {
     }
 
     /** Square-root rule for bin count. */
-    private static int sqrtBinCount(double[] data) {
-        int bins = (int) Math.round(Math.sqrt(data.length));
+    private static int sqrtBinCount(PreparedDataset data) {
+        return sqrtBinCount(data.size());
+    }
+
+    private static int sqrtBinCount(long n) {
+        int bins = (int) Math.round(Math.sqrt(n));
         if (bins < 5) bins = 5;
         if (bins > 100) bins = 100;
         return bins;
     }
 
     /** Integer edges for "integers" rule. */
-    private static double[] integerEdges(double[] data) {
-        double min = min(data);
-        double max = max(data);
+    private static double[] integerEdges(PreparedDataset data) {
+        double min = data.min();
+        double max = data.max();
         int start = (int) Math.floor(min);
         int end = (int) Math.ceil(max);
         int numBins = Math.max(1, end - start);
@@ -541,47 +628,23 @@ public class Histograms {
 
     // ----- Utility: histogram builders -----
 
-    private static HistogramData uniformBinHistogram(double[] data, int numBins) {
-        double min = min(data);
-        double max = max(data);
+    private static HistogramData uniformBinHistogram(PreparedDataset data, int numBins) {
+        double min = data.min();
+        double max = data.max();
         if (max == min) {
             max = min + 1e-9;
         }
-        return uniformBinHistogramInRange(data, min, max, numBins);
+        return uniformBinHistogramInRange(data.data(), min, max, numBins);
     }
 
     private static HistogramData uniformBinHistogramInRange(double[] data,
                                                             double min,
                                                             double max,
                                                             int numBins) {
-        double range = max - min;
-        double binWidth = range / numBins;
-        double[] counts = new double[numBins];
-
-        for (double v : data) {
-            if (Double.isNaN(v)) continue;
-            int idx = (int) ((v - min) / binWidth);
-            if (idx < 0 || idx >= numBins) {
-                // include max in last bin
-                if (v == max) {
-                    idx = numBins - 1;
-                } else {
-                    continue;
-                }
-            }
-            counts[idx] += 1.0;
-        }
-
-        double[] centers = new double[numBins];
-        double[] widths = new double[numBins];
-        for (int i = 0; i < numBins; i++) {
-            double left = min + i * binWidth;
-            double right = left + binWidth;
-            centers[i] = (left + right) / 2.0;
-            widths[i] = binWidth;
-        }
-
-        return new HistogramData(centers, counts, widths);
+        // Large inputs are counted in parallel chunks; small ones stay serial
+        BinIndexer indexer = BinIndexer.forRange(min, max, numBins);
+        double[] counts = ParallelBinCounter.count(data, numBins, indexer::countInto);
+        return uniformBins(min, max, counts);
     }
 
     private static HistogramData histogramWithBinWidth(double[] data,
@@ -595,38 +658,78 @@ public class Histograms {
 
     private static HistogramData histogramWithCustomEdges(double[] data, double[] edges) {
         int numBins = edges.length - 1;
-        double[] counts = new double[numBins];
+        // Uniform / lookup-table / binary-search bin lookup instead of a linear scan
+        BinIndexer indexer = BinIndexer.forEdges(edges);
+        double[] counts = ParallelBinCounter.count(data, numBins, indexer::countInto);
+        return edgeBins(edges, counts);
+    }
 
-        for (double v : data) {
-            if (Double.isNaN(v)) continue;
-            if (v < edges[0] || v > edges[edges.length - 1]) {
-                continue;
-            }
-            int binIndex = -1;
-            for (int i = 0; i < numBins; i++) {
-                double left = edges[i];
-                double right = edges[i + 1];
-                boolean inBin = (v >= left && (v < right || (i == numBins - 1 && v <= right)));
-                if (inBin) {
-                    binIndex = i;
-                    break;
-                }
-            }
-            if (binIndex >= 0) {
-                counts[binIndex] += 1.0;
-            }
+    /** Centers and widths for counts.length equal bins over [min, max]. */
+    private static HistogramData uniformBins(double min, double max, double[] counts) {
+        int numBins = counts.length;
+        double binWidth = (max - min) / numBins;
+        double[] centers = new double[numBins];
+        double[] widths = new double[numBins];
+        for (int i = 0; i < numBins; i++) {
+            double left = min + i * binWidth;
+            double right = left + binWidth;
+            centers[i] = (left + right) / 2.0;
+            widths[i] = binWidth;
         }
+        return new HistogramData(centers, counts, widths);
+    }
 
+    /** Centers and widths for the bins between consecutive edges. */
+    private static HistogramData edgeBins(double[] edges, double[] counts) {
+        int numBins = edges.length - 1;
         double[] centers = new double[numBins];
         double[] widths = new double[numBins];
         for (int i = 0; i < numBins; i++) {
             widths[i] = edges[i + 1] - edges[i];
             centers[i] = (edges[i + 1] + edges[i]) / 2.0;
         }
-
         return new HistogramData(centers, counts, widths);
     }
 
+    // ----- Utility: histogram builders for column sources -----
+    // Same bin rules as above for MappedColumn, OffHeapColumn and CSV / TSV
+    // columns; values are counted where they are stored, so heap use
+    // depends on the bin count only.
+
+    static HistogramData uniformBinHistogram(ColumnSource column, int numBins) {
+        double min = column.min();
+        double max = column.max();
+        if (max == min) {
+            max = min + 1e-9;
+        }
+        return uniformBinHistogramInRange(column, min, max, numBins);
+    }
+
+    static HistogramData uniformBinHistogramInRange(ColumnSource column,
+                                                    double min,
+                                                    double max,
+                                                    int numBins) {
+        return uniformBins(min, max, column.count(BinIndexer.forRange(min, max, numBins)));
+    }
+
+    static HistogramData histogramWithBinWidth(ColumnSource column,
+                                               double min,
+                                               double max,
+                                               double binWidth) {
+        int numBins = (int) Math.ceil((max - min) / binWidth);
+        double extendedMax = min + numBins * binWidth;
+        return uniformBinHistogramInRange(column, min, extendedMax, numBins);
+    }
+
+    static HistogramData histogramWithCustomEdges(ColumnSource column, double[] edges) {
+        return edgeBins(edges, column.count(BinIndexer.forEdges(edges)));
+    }
+
+    /** Freedman–Diaconis bin count from one sketch of the column. */
+    static int fdBinCount(ColumnSource column) {
+        return fdBinCount(column.sketch());
+    }
+
     // ----- Utility: normal PDF -----
 
     private static double normalPdf(double x, double mu, double sigma) {
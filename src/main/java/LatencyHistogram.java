@@ -0,0 +1,88 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram in microseconds, for percentiles of request
+ * and render times.
+ *
+ * Values below 16 us get a bucket each; above that, every power of two is
+ * split into 16 equal buckets, so a reported percentile is within 1/16
+ * (6.25%) of the true value. That is 960 buckets for the whole long
+ * range, recorded with one atomic increment and no allocation.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    void recordNanos(long nanos) {
+        record(Math.max(0L, nanos / 1_000L));
+    }
+
+    void record(long micros) {
+        counts.incrementAndGet(index(micros));
+        count.increment();
+        sum.add(micros);
+        max.accumulate(micros);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    double meanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) sum.sum() / n;
+    }
+
+    long maxMicros() {
+        return max.get();
+    }
+
+    /**
+     * The p-th percentile (0 < p <= 100) in microseconds: the upper edge
+     * of the bucket holding it, capped at the max seen. 0 if empty.
+     */
+    long percentileMicros(double p) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(p / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    private static int index(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exp - SUB_BITS) * SUB_BUCKETS + sub;
+    }
+
+    // Largest value that maps to bucket i
+    private static long upperBound(int i) {
+        if (i < SUB_BUCKETS) {
+            return i;
+        }
+        int exp = (i - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+        int sub = (i - SUB_BUCKETS) % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + sub) << (exp - SUB_BITS);
+        return lower + (1L << (exp - SUB_BITS)) - 1;
+    }
+}
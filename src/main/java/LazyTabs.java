@@ -0,0 +1,172 @@
+import javax.swing.*;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Tabs whose charts are built on first use instead of before the window
+ * opens.
+ *
+ * Each tab starts as a light placeholder. The selected tab is built right
+ * away; once the window is idle the remaining tabs are prefetched one at a
+ * time, in tab order. Building runs on a background thread (typically it
+ * just joins a ChartPipeline stage that is already computing); only
+ * wrapping the result in Swing components happens on the EDT, after which
+ * the placeholder's content is swapped.
+ *
+ * All methods must be called on the EDT.
+ */
+final class LazyTabs {
+
+    // Pause between idle prefetches, so input events get the EDT in between
+    private static final int PREFETCH_DELAY_MS = 50;
+
+    // Build and startup times go to stdout only with -Dplotting.timings
+    private static final boolean PRINT_TIMINGS = Boolean.getBoolean("plotting.timings");
+
+    private enum State { PENDING, BUILDING, DONE }
+
+    private final class Tab<T> {
+        final JPanel placeholder = new JPanel(new BorderLayout());
+        final String title;
+        final Supplier<T> build;
+        final Function<T, ? extends JComponent> wrap;
+        State state = State.PENDING;
+
+        Tab(String title, Supplier<T> build, Function<T, ? extends JComponent> wrap) {
+            this.title = title;
+            this.build = build;
+            this.wrap = wrap;
+            placeholder.setPreferredSize(placeholderSize);
+            JLabel label = new JLabel("Building \"" + title + "\"...", SwingConstants.CENTER);
+            placeholder.add(label, BorderLayout.CENTER);
+        }
+
+        void load() {
+            state = State.BUILDING;
+            builder.execute(() -> {
+                long t0 = System.nanoTime();
+                T value;
+                try {
+                    value = build.get();
+                } catch (RuntimeException | Error e) {
+                    e.printStackTrace();
+                    SwingUtilities.invokeLater(() -> show(new JLabel(
+                            "Failed to build \"" + title + "\": " + e, SwingConstants.CENTER), t0));
+                    return;
+                }
+                SwingUtilities.invokeLater(() -> show(wrap.apply(value), t0));
+            });
+        }
+
+        private void show(JComponent content, long t0) {
+            placeholder.removeAll();
+            placeholder.add(content, BorderLayout.CENTER);
+            placeholder.revalidate();
+            placeholder.repaint();
+            state = State.DONE;
+            if (PRINT_TIMINGS) {
+                System.out.printf("Tab \"%s\" ready after %.1f ms%n", title, (System.nanoTime() - t0) / 1e6);
+            }
+            if (onTabShown != null && tabs.getSelectedComponent() == placeholder) {
+                onTabShown.accept(title);
+            }
+            schedulePrefetch();
+        }
+    }
+
+    private final JTabbedPane tabs;
+    private final Dimension placeholderSize;
+    private final List<Tab<?>> entries = new ArrayList<>();
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "chart-builder");
+        t.setDaemon(true);
+        return t;
+    });
+    // Called on the EDT when a built tab is swapped in while selected
+    private Consumer<String> onTabShown;
+
+    /** placeholderSize should match the charts' size so the first pack() fits them. */
+    LazyTabs(JTabbedPane tabs, Dimension placeholderSize) {
+        this.tabs = tabs;
+        this.placeholderSize = placeholderSize;
+        tabs.addChangeListener(e -> loadSelected());
+    }
+
+    /**
+     * Adds a tab: build runs off the EDT (pure data / chart work), wrap
+     * turns its result into the tab's component on the EDT.
+     */
+    <T> void addTab(String title, Supplier<T> build, Function<T, ? extends JComponent> wrap) {
+        Tab<T> tab = new Tab<>(title, build, wrap);
+        entries.add(tab);
+        tabs.addTab(title, tab.placeholder);
+    }
+
+    /**
+     * Prints the time from startNanos (taken at the top of main) to the
+     * first visible frame and to the first chart on screen, if
+     * -Dplotting.timings is set.
+     */
+    void reportStartupTimes(JFrame frame, long startNanos) {
+        if (!PRINT_TIMINGS) {
+            return;
+        }
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                System.out.printf("First frame visible after %.1f ms%n", (System.nanoTime() - startNanos) / 1e6);
+            }
+        });
+        Consumer<String> previous = onTabShown;
+        boolean[] reported = {false};
+        onTabShown = title -> {
+            if (!reported[0]) {
+                reported[0] = true;
+                System.out.printf("First chart (\"%s\") visible after %.1f ms%n",
+                        title, (System.nanoTime() - startNanos) / 1e6);
+            }
+            if (previous != null) {
+                previous.accept(title);
+            }
+        };
+    }
+
+    /** Builds the selected tab now; the others follow when idle. */
+    void start() {
+        loadSelected();
+    }
+
+    private void loadSelected() {
+        int index = tabs.getSelectedIndex();
+        if (index >= 0 && index < entries.size() && entries.get(index).state == State.PENDING) {
+            entries.get(index).load();
+        }
+    }
+
+    private void schedulePrefetch() {
+        Timer timer = new Timer(PREFETCH_DELAY_MS, e -> {
+            for (Tab<?> tab : entries) {
+                if (tab.state == State.BUILDING) {
+                    return; // the running build schedules the next prefetch
+                }
+            }
+            for (Tab<?> tab : entries) {
+                if (tab.state == State.PENDING) {
+                    tab.load();
+                    return;
+                }
+            }
+        });
+        timer.setRepeats(false);
+        timer.start();
+    }
+}
@@ -1,23 +1,25 @@
 // LinePlots.java
 // Java/XChart for line plotting examples.
-// All plots are shown in a single JFrame with 6 tabs.
+// All plots are shown in a single JFrame with 6 tabs; charts compute concurrently at startup.
 
 import org.knowm.xchart.XYChart;
 import org.knowm.xchart.XYChartBuilder;
 import org.knowm.xchart.XYSeries;
-import org.knowm.xchart.XChartPanel;
 import org.knowm.xchart.style.markers.SeriesMarkers;
 import org.knowm.xchart.style.lines.SeriesLines;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.function.DoubleUnaryOperator;
+import java.util.concurrent.CompletableFuture;
 
 public class LinePlots {
 
     public static void main(String[] args) {
+        long startNanos = System.nanoTime();
 
         // If anything blows up on the Swing thread, print it to the console
         Thread.setDefaultUncaughtExceptionHandler((t, e) -> {
@@ -25,75 +27,109 @@ public class LinePlots {
             e.printStackTrace();
         });
 
-        // Build all charts first (pure math, no Swing yet)
-        XYChart chart1 = createMultipleLineChart();
-        XYChart chart2 = createSetOfVectorsChart();
-        XYChart chart3 = createSinLinesChart();
-        XYChart chart4 = createSinLinesWithMarkersChart();
-        List<XYChart> tiledCharts = createTiledCharts();          // Example 5 (2×1)
-        List<XYChart> subplots3x2Charts = createSubplots3x2();    // Example 6 (3×2)
+        // All examples compute concurrently; each tab joins its own stage
+        // before its chart is handed to Swing (see LazyTabs), so the window
+        // appears without waiting for examples nobody has opened yet
+        ChartPipeline pipeline = new ChartPipeline();
+        ChartPipeline.Stage<XYChart> chart1 = pipeline.add("1: multiple lines", LinePlots::createMultipleLineChart);
+        ChartPipeline.Stage<XYChart> chart2 = pipeline.add("2: set of vectors", LinePlots::createSetOfVectorsChart);
+        ChartPipeline.Stage<XYChart> chart3 = pipeline.add("3: sin shifts", LinePlots::createSinLinesChart);
+        ChartPipeline.Stage<XYChart> chart4 = pipeline.add("4: sin + markers", LinePlots::createSinLinesWithMarkersChart);
+        ChartPipeline.Stage<List<XYChart>> tiled = pipeline.add("5: 2x1 grid", LinePlots::createTiledCharts);
+        ChartPipeline.Stage<List<XYChart>> subplots3x2 = pipeline.add("6: 3x2 grid", LinePlots::createSubplots3x2);
 
-        // Build and show the UI on the Event Dispatch Thread
         SwingUtilities.invokeLater(() -> buildAndShowUI(
-                chart1, chart2, chart3, chart4, tiledCharts, subplots3x2Charts
+                chart1, chart2, chart3, chart4, tiled, subplots3x2, startNanos
         ));
+
+        if (Boolean.getBoolean("plotting.timings")) {
+            CompletableFuture.runAsync(() -> {
+                pipeline.joinAll();
+                System.out.println("Chart pipeline:");
+                pipeline.printTimings(System.out);
+            });
+        }
+    }
+
+    /** Every example, for headless export with BatchRenderer. */
+    static List<BatchRenderer.Job> batchJobs() {
+        List<BatchRenderer.Job> jobs = new ArrayList<>();
+        jobs.add(BatchRenderer.Job.of("line-1-multiple-lines", LinePlots::createMultipleLineChart));
+        jobs.add(BatchRenderer.Job.of("line-2-set-of-vectors", LinePlots::createSetOfVectorsChart));
+        jobs.add(BatchRenderer.Job.of("line-3-sin-shifts", LinePlots::createSinLinesChart));
+        jobs.add(BatchRenderer.Job.of("line-4-sin-markers", LinePlots::createSinLinesWithMarkersChart));
+        jobs.add(BatchRenderer.Job.ofList("line-5-tiled", LinePlots::createTiledCharts));
+        jobs.add(BatchRenderer.Job.ofList("line-6-subplots", LinePlots::createSubplots3x2));
+        return jobs;
     }
 
     // -------------------------------------------------------------------------
     //  Build main UI: one window, 6 tabs
     // -------------------------------------------------------------------------
 
-    private static void buildAndShowUI(XYChart chart1,
-                                       XYChart chart2,
-                                       XYChart chart3,
-                                       XYChart chart4,
-                                       List<XYChart> tiled,
-                                       List<XYChart> subplots3x2) {
+    private static void buildAndShowUI(ChartPipeline.Stage<XYChart> chart1,
+                                       ChartPipeline.Stage<XYChart> chart2,
+                                       ChartPipeline.Stage<XYChart> chart3,
+                                       ChartPipeline.Stage<XYChart> chart4,
+                                       ChartPipeline.Stage<List<XYChart>> tiled,
+                                       ChartPipeline.Stage<List<XYChart>> subplots3x2,
+                                       long startNanos) {
 
         JFrame frame = new JFrame("Java_Plot – XChart demo");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setLayout(new BorderLayout());
 
         JTabbedPane tabs = new JTabbedPane();
+        // Largest tab (3×2 grid of 600×400 charts) sets the window size
+        LazyTabs lazyTabs = new LazyTabs(tabs, new Dimension(1200, 1200));
 
         // Tab 1: Multiple line plots
-        tabs.addTab("1) Multiple lines", wrapSingleChart(chart1));
+        lazyTabs.addTab("1) Multiple lines", chart1::join, LinePlots::wrapSingleChart);
 
         // Tab 2: Set of vectors
-        tabs.addTab("2) Set of vectors", wrapSingleChart(chart2));
+        lazyTabs.addTab("2) Set of vectors", chart2::join, LinePlots::wrapSingleChart);
 
         // Tab 3: sin() line plots
-        tabs.addTab("3) sin(x) shifts", wrapSingleChart(chart3));
+        lazyTabs.addTab("3) sin(x) shifts", chart3::join, LinePlots::wrapSingleChart);
 
         // Tab 4: sin() with markers
-        tabs.addTab("4) sin + markers", wrapSingleChart(chart4));
+        lazyTabs.addTab("4) sin + markers", chart4::join, LinePlots::wrapSingleChart);
 
         // Tab 5: 2×1 grid (top & bottom)
-        tabs.addTab("5) 2×1 grid", wrapChartGrid(tiled, 2, 1));
+        lazyTabs.addTab("5) 2×1 grid", tiled::join, charts -> wrapChartGrid(charts, 2, 1));
 
         // Tab 6: 3×2 grid (6 charts)
-        tabs.addTab("6) 3×2 grid", wrapChartGrid(subplots3x2, 3, 2));
+        lazyTabs.addTab("6) 3×2 grid", subplots3x2::join, charts -> wrapChartGrid(charts, 3, 2));
+
+        lazyTabs.reportStartupTimes(frame, startNanos);
 
         frame.add(tabs, BorderLayout.CENTER);
         frame.pack();
         frame.setLocationRelativeTo(null); // center on screen
         frame.setVisible(true);
+        lazyTabs.start();
     }
 
     // -------------------------------------------------------------------------
     //  Helper UI methods
     // -------------------------------------------------------------------------
 
+    // Drag-select zoom is switched on only for charts shown in a panel:
+    // XChart's zoom overlay needs an XChartPanel, so image export of a
+    // zoom-enabled chart would fail
     private static JPanel wrapSingleChart(XYChart chart) {
+        chart.getStyler().setZoomEnabled(true);
         JPanel panel = new JPanel(new BorderLayout());
-        panel.add(new XChartPanel<>(chart), BorderLayout.CENTER);
+        panel.add(new MeteredChartPanel<>(chart), BorderLayout.CENTER);
         return panel;
     }
 
+    // Grids rasterize off the EDT (see AsyncChartPanel) so resizing the
+    // window stays smooth; they trade zoom and tooltips for that
     private static JPanel wrapChartGrid(List<XYChart> charts, int rows, int cols) {
         JPanel gridPanel = new JPanel(new GridLayout(rows, cols));
         for (XYChart chart : charts) {
-            gridPanel.add(new XChartPanel<>(chart));
+            gridPanel.add(new AsyncChartPanel(chart));
         }
         JPanel outer = new JPanel(new BorderLayout());
         outer.add(gridPanel, BorderLayout.CENTER);
@@ -140,28 +176,160 @@ public class LinePlots {
     }
 
     // -------------------------------------------------------------------------
-    //  Numeric helpers (linspace + apply)
+    //  Numeric helpers (linspace)
+    //  Large arrays are filled in parallel blocks; see ArrayKernels
     // -------------------------------------------------------------------------
 
     private static double[] linspace(double start, double end, int num) {
-        double[] result = new double[num];
-        if (num == 1) {
-            result[0] = start;
-            return result;
-        }
-        double step = (end - start) / (num - 1);
-        for (int i = 0; i < num; i++) {
-            result[i] = start + step * i;
-        }
-        return result;
+        return ArrayKernels.linspace(start, end, num);
     }
 
-    private static double[] apply(double[] x, DoubleUnaryOperator op) {
-        double[] y = new double[x.length];
-        for (int i = 0; i < x.length; i++) {
-            y[i] = op.applyAsDouble(x[i]);
+    // -------------------------------------------------------------------------
+    //  Decimated series for large data
+    // -------------------------------------------------------------------------
+
+    /** Pixel columns of the chart's plot area, the decimation target. */
+    static int plotPixelWidth(XYChart chart) {
+        return Math.max(1, (int) Math.ceil(chart.getWidth() * chart.getStyler().getPlotContentSize()));
+    }
+
+    /**
+     * Adds a series reduced to about two points per pixel column of the
+     * chart (see SeriesDecimator). Small series are added unchanged.
+     */
+    static XYSeries addDecimatedSeries(XYChart chart,
+                                       String seriesName,
+                                       double[] x,
+                                       double[] y,
+                                       SeriesDecimator.Mode mode) {
+        double[][] xy = SeriesDecimator.decimate(x, y, plotPixelWidth(chart), mode);
+        return chart.addSeries(seriesName, xy[0], xy[1]);
+    }
+
+    /**
+     * Adds a series backed by a min/max LOD pyramid (x must be ascending).
+     * With zoom enabled, each zoom swaps in the pyramid level matching the
+     * selected x-range and the plot width; see LodXYSeries.
+     */
+    static XYSeries addLodSeries(XYChart chart, String seriesName, double[] x, double[] y) {
+        LodXYSeries series = LodXYSeries.create(seriesName, LodPyramid.of(x, y), chart);
+        // Let XYChart validate the name, then swap in the LOD-backed series
+        chart.addSeries(seriesName, series.getXData(), series.getYData());
+        chart.getSeriesMap().put(seriesName, series);
+        return series;
+    }
+
+    /**
+     * A LinePlots-styled chart for live telemetry, redrawn at most maxFps
+     * times per second; add series with LiveChart.addSeries and wrap it in
+     * an XChartPanel passed to attach(). Tooltips are off, since the data
+     * changes under the mouse every frame.
+     */
+    static LiveChart createLiveChart(String title, String xLabel, String yLabel, int maxFps) {
+        XYChart chart = createBaseChart(title, xLabel, yLabel);
+        chart.getStyler().setToolTipsEnabled(false);
+        chart.getStyler().setMarkerSize(0);
+        return new LiveChart(chart, maxFps);
+    }
+
+    /**
+     * A one-series line chart of (x, y) in the style of the examples, min/max
+     * decimated to the chart width; for data from outside (ChartServer).
+     */
+    static XYChart createLineChart(String title, double[] x, double[] y) {
+        XYChart chart = createBaseChart(title, "x", "y");
+        chart.getStyler().setLegendVisible(false);
+        chart.getStyler().setMarkerSize(0);
+        addDecimatedSeries(chart, "data", x, y, SeriesDecimator.Mode.MIN_MAX);
+        return chart;
+    }
+
+    // -------------------------------------------------------------------------
+    //  Series from memory-mapped binary columns
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds points [from, from + length) of two mapped columns as one series.
+     * Only that window is copied to the heap; the files stay mapped. Long
+     * windows are min/max decimated to the chart width.
+     */
+    static XYSeries addColumnSeries(XYChart chart,
+                                    String seriesName,
+                                    MappedColumn x,
+                                    MappedColumn y,
+                                    long from,
+                                    int length) {
+        return addDecimatedSeries(chart, seriesName,
+                x.toArray(from, length), y.toArray(from, length), SeriesDecimator.Mode.MIN_MAX);
+    }
+
+    // -------------------------------------------------------------------------
+    //  Series from off-heap columns
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds points [from, to) of two off-heap columns as one series, min/max
+     * decimated to the chart width while streaming the columns, so only the
+     * decimated points are copied to the heap.
+     */
+    static XYSeries addColumnSeries(XYChart chart,
+                                    String seriesName,
+                                    OffHeapColumn x,
+                                    OffHeapColumn y,
+                                    long from,
+                                    long to) {
+        double[][] xy = SeriesDecimator.minMax(x, y, from, to, plotPixelWidth(chart));
+        return chart.addSeries(seriesName, xy[0], xy[1]);
+    }
+
+    // -------------------------------------------------------------------------
+    //  Series from CSV / TSV columns
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds two parsed columns of a CSV/TSV file as one XY series.
+     * Numbers are parsed straight into primitive arrays, with no String per
+     * cell. Rows where x or y is missing or unparsable are dropped. The
+     * file is read twice: once in parallel ranges for the point count and
+     * x range, then in order through per-pixel-column min/max decimation,
+     * so heap use depends on the chart width, not the file size. xColumn
+     * and yColumn are file column indices selected by the reader.
+     */
+    static XYSeries addCsvSeries(XYChart chart,
+                                 String seriesName,
+                                 CsvColumnReader csv,
+                                 int xColumn,
+                                 int yColumn) throws IOException {
+        int xSlot = csv.slotOf(xColumn);
+        int ySlot = csv.slotOf(yColumn);
+
+        List<SeriesDecimator.Span> spans = csv.forEachChunkParallel(SeriesDecimator.Span::new,
+                (span, cols, rows) -> {
+                    double[] xs = cols[xSlot];
+                    double[] ys = cols[ySlot];
+                    for (int i = 0; i < rows; i++) {
+                        if (!Double.isNaN(xs[i]) && !Double.isNaN(ys[i])) {
+                            span.add(xs[i]);
+                        }
+                    }
+                });
+        SeriesDecimator.Span all = new SeriesDecimator.Span();
+        for (SeriesDecimator.Span span : spans) {
+            all.append(span);
         }
-        return y;
+
+        SeriesDecimator.MinMaxStream decimated = new SeriesDecimator.MinMaxStream(all, plotPixelWidth(chart));
+        csv.forEachChunk((cols, rows) -> {
+            double[] xs = cols[xSlot];
+            double[] ys = cols[ySlot];
+            for (int i = 0; i < rows; i++) {
+                if (!Double.isNaN(xs[i]) && !Double.isNaN(ys[i])) {
+                    decimated.add(xs[i], ys[i]);
+                }
+            }
+        });
+        double[][] xy = decimated.result();
+        return chart.addSeries(seriesName, xy[0], xy[1]);
     }
 
     // -------------------------------------------------------------------------
@@ -170,12 +338,11 @@ public class LinePlots {
 
     private static XYChart createMultipleLineChart() {
         double[] x = linspace(0.0, 2.0 * Math.PI, 200);
-        double[] y1 = apply(x, Math::sin);
+        double[] y1 = ArrayKernels.map(x, ArrayKernels.SIN);
 
-        double[] y2 = new double[x.length];
+        double[] y2 = ArrayKernels.map(y1, ArrayKernels.NEGATE);
         double[] y3 = new double[x.length];
         for (int i = 0; i < x.length; i++) {
-            y2[i] = -y1[i];
             y3[i] = x[i] / Math.PI - 1.0;
         }
 
@@ -247,9 +414,9 @@ public class LinePlots {
 
     private static XYChart createSinLinesChart() {
         double[] x = linspace(0.0, 2.0 * Math.PI, 200);
-        double[] y1 = apply(x, Math::sin);
-        double[] y2 = apply(x, v -> Math.sin(v - 0.25));
-        double[] y3 = apply(x, v -> Math.sin(v - 0.5));
+        double[] y1 = ArrayKernels.map(x, ArrayKernels.SIN);
+        double[] y2 = ArrayKernels.map(x, ArrayKernels.shift(-0.25).andThen(ArrayKernels.SIN));
+        double[] y3 = ArrayKernels.map(x, ArrayKernels.shift(-0.5).andThen(ArrayKernels.SIN));
 
         XYChart chart = createBaseChart("Sin() function line plots", "x", "y");
 
@@ -274,9 +441,9 @@ public class LinePlots {
 
     private static XYChart createSinLinesWithMarkersChart() {
         double[] x = linspace(0.0, 2.0 * Math.PI, 40);
-        double[] y1 = apply(x, Math::sin);
-        double[] y2 = apply(x, v -> Math.sin(v - 0.25));
-        double[] y3 = apply(x, v -> Math.sin(v - 0.5));
+        double[] y1 = ArrayKernels.map(x, ArrayKernels.SIN);
+        double[] y2 = ArrayKernels.map(x, ArrayKernels.shift(-0.25).andThen(ArrayKernels.SIN));
+        double[] y3 = ArrayKernels.map(x, ArrayKernels.shift(-0.5).andThen(ArrayKernels.SIN));
 
         XYChart chart = createBaseChart("Sin() function line plots with markers", "x", "y");
 
@@ -301,8 +468,8 @@ public class LinePlots {
 
     private static List<XYChart> createTiledCharts() {
         double[] x = linspace(0.0, 3.0, 200);
-        double[] y1 = apply(x, v -> Math.sin(5.0 * v));
-        double[] y2 = apply(x, v -> Math.sin(15.0 * v));
+        double[] y1 = ArrayKernels.map(x, ArrayKernels.scale(5.0).andThen(ArrayKernels.SIN));
+        double[] y2 = ArrayKernels.map(x, ArrayKernels.scale(15.0).andThen(ArrayKernels.SIN));
 
         XYChart top = createBaseChart("Top Plot", "x", "sin(5x)");
         top.addSeries("sin(5x)", x, y1).setMarker(SeriesMarkers.NONE);
@@ -327,7 +494,7 @@ public class LinePlots {
 
         // (row 0, col 0): sin(x)
         double[] x1 = linspace(0.0, 10.0, 100);
-        double[] y1 = apply(x1, Math::sin);
+        double[] y1 = ArrayKernels.map(x1, ArrayKernels.SIN);
         XYChart c1 = createBaseChart("sin(x)", "x", "sin(x)");
         c1.addSeries("sin(x)", x1, y1).setMarker(SeriesMarkers.CIRCLE);
         c1.getStyler().setLegendVisible(false);
@@ -335,7 +502,9 @@ public class LinePlots {
 
         // (row 0, col 1): tan(sin(x)) - sin(tan(x))
         double[] x2 = linspace(-Math.PI, Math.PI, 40);
-        double[] y2 = apply(x2, v -> Math.tan(Math.sin(v)) - Math.sin(Math.tan(v)));
+        double[] y2 = ArrayKernels.map(x2, ArrayKernels.subtract(
+                ArrayKernels.compose(ArrayKernels.SIN, ArrayKernels.TAN),
+                ArrayKernels.compose(ArrayKernels.TAN, ArrayKernels.SIN)));
         XYChart c2 = createBaseChart("tan(sin x) - sin(tan x)", "x", "y");
         XYSeries s2 = c2.addSeries("f(x)", x2, y2);
         s2.setMarker(SeriesMarkers.DIAMOND);
@@ -345,7 +514,7 @@ public class LinePlots {
 
         // (row 1, col 0): cos(5x)
         double[] x3 = linspace(0.0, 10.0, 150);
-        double[] y3 = apply(x3, v -> Math.cos(5.0 * v));
+        double[] y3 = ArrayKernels.map(x3, ArrayKernels.scale(5.0).andThen(ArrayKernels.COS));
         XYChart c3 = createBaseChart("2-D Line Plot", "x", "cos(5x)");
         c3.addSeries("cos(5x)", x3, y3).setMarker(SeriesMarkers.NONE);
         c3.getStyler().setLegendVisible(false);
@@ -362,7 +531,7 @@ public class LinePlots {
 
         // (row 2, col 0): sin(5x)
         double[] x5 = linspace(0.0, 3.0, 100);
-        double[] y5 = apply(x5, v -> Math.sin(5.0 * v));
+        double[] y5 = ArrayKernels.map(x5, ArrayKernels.scale(5.0).andThen(ArrayKernels.SIN));
         XYChart c5 = createBaseChart("sin(5x)", "x", "y");
         c5.addSeries("sin(5x)", x5, y5).setMarker(SeriesMarkers.NONE);
         c5.getStyler().setLegendVisible(false);
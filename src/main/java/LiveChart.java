@@ -0,0 +1,114 @@
+import org.knowm.xchart.XYChart;
+
+import javax.swing.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Live XY chart: producers add samples to per-series XYRingBuffers from
+ * any thread, and a Swing timer redraws at most maxFps times per second.
+ *
+ * Each frame copies only the series that received samples since the last
+ * frame, reduces them to min/max per pixel column (see SeriesDecimator)
+ * and hands them to XYChart.updateXYSeries, then repaints once. However
+ * fast samples arrive, the EDT does at most one update per series per
+ * frame, and producers never wait for it.
+ *
+ * Construction, addSeries, attach, start and stop belong on the EDT
+ * (before the chart is shown, any thread will do).
+ */
+final class LiveChart {
+
+    private static final class Live {
+        final XYRingBuffer ring;
+        // Reused every frame; only the EDT touches them
+        final double[] x;
+        final double[] y;
+        long lastAdded;
+
+        Live(XYRingBuffer ring) {
+            this.ring = ring;
+            this.x = new double[ring.capacity()];
+            this.y = new double[ring.capacity()];
+        }
+    }
+
+    private final XYChart chart;
+    private final Map<String, Live> series = new LinkedHashMap<>();
+    private final Timer timer;
+    private JComponent panel;
+    private long frames;
+
+    LiveChart(XYChart chart, int maxFps) {
+        if (maxFps < 1 || maxFps > 1000) {
+            throw new IllegalArgumentException("maxFps must be in [1, 1000], got " + maxFps);
+        }
+        this.chart = chart;
+        this.timer = new Timer(1000 / maxFps, e -> frame());
+        timer.setCoalesce(true);
+    }
+
+    XYChart chart() {
+        return chart;
+    }
+
+    /**
+     * Adds an empty series holding the latest capacity samples (rounded up
+     * to a power of two) and returns the buffer producers write to.
+     */
+    XYRingBuffer addSeries(String seriesName, int capacity) {
+        XYRingBuffer ring = new XYRingBuffer(capacity);
+        chart.addSeries(seriesName, new double[]{Double.NaN}, new double[]{Double.NaN});
+        series.put(seriesName, new Live(ring));
+        return ring;
+    }
+
+    /** The component to repaint after each frame, usually the chart's XChartPanel. */
+    void attach(JComponent panel) {
+        this.panel = panel;
+    }
+
+    void start() {
+        timer.start();
+    }
+
+    void stop() {
+        timer.stop();
+    }
+
+    /** Frames that updated at least one series so far. */
+    long frames() {
+        return frames;
+    }
+
+    private void frame() {
+        boolean changed = false;
+        int columns = LinePlots.plotPixelWidth(chart);
+        for (Map.Entry<String, Live> entry : series.entrySet()) {
+            Live live = entry.getValue();
+            long added = live.ring.added();
+            if (added == live.lastAdded) {
+                continue;
+            }
+            live.lastAdded = added;
+            int n = live.ring.snapshot(live.x, live.y);
+            if (n == 0) {
+                continue;
+            }
+            // The chart keeps the arrays it is given, so never hand it the reused buffers
+            double[][] xy = SeriesDecimator.minMax(live.x, live.y, 0, n, columns);
+            if (xy[0] == live.x) {
+                xy = new double[][]{xy[0].clone(), xy[1].clone()};
+            }
+            chart.updateXYSeries(entry.getKey(), xy[0], xy[1], null);
+            changed = true;
+        }
+        if (changed) {
+            ChartImageCache.SHARED.invalidate(chart);
+            frames++;
+            if (panel != null) {
+                panel.repaint();
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+import java.util.Arrays;
+
+/**
+ * Min/max level-of-detail pyramid over an XY series with ascending x,
+ * the line-chart analogue of texture mipmaps.
+ *
+ * Level L groups the samples into buckets of 4^L and stores, per bucket,
+ * the indices of its lowest and highest sample. A view of any x-range is
+ * built from the coarsest level that still has at least one bucket per
+ * pixel column, then reduced to per-column min/max, so the cost of a view
+ * depends on the pixel width and not on how many samples fall in range.
+ * Peaks are never lost: every level keeps each bucket's extremes.
+ *
+ * The x and y arrays are wrapped, not copied, and must not be modified.
+ * Extra memory is two ints per four samples (about n * 8/3 bytes).
+ */
+final class LodPyramid {
+
+    // Buckets at level L + 1 span FANOUT buckets of level L
+    private static final int FANOUT = 4;
+
+    // Stop adding levels once a level is this small
+    private static final int MIN_TOP_BUCKETS = 256;
+
+    private final double[] x;
+    private final double[] y;
+
+    // minIndex[L - 1][b] / maxIndex[L - 1][b]: extremes of bucket b at level L (-1 if all NaN)
+    private final int[][] minIndex;
+    private final int[][] maxIndex;
+
+    private LodPyramid(double[] x, double[] y, int[][] minIndex, int[][] maxIndex) {
+        this.x = x;
+        this.y = y;
+        this.minIndex = minIndex;
+        this.maxIndex = maxIndex;
+    }
+
+    /** Builds the pyramid in O(n); x must be ascending (NaN-free). */
+    static LodPyramid of(double[] x, double[] y) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("x and y lengths differ: " + x.length + " vs " + y.length);
+        }
+        for (int i = 1; i < x.length; i++) {
+            if (!(x[i] >= x[i - 1])) {
+                throw new IllegalArgumentException("x must be ascending (index " + i + ")");
+            }
+        }
+
+        int levels = 0;
+        for (long buckets = x.length; buckets > MIN_TOP_BUCKETS; buckets = (buckets + FANOUT - 1) / FANOUT) {
+            levels++;
+        }
+        int[][] minIndex = new int[levels][];
+        int[][] maxIndex = new int[levels][];
+        for (int level = 0; level < levels; level++) {
+            int[] childMin = level == 0 ? null : minIndex[level - 1];
+            int[] childMax = level == 0 ? null : maxIndex[level - 1];
+            int children = level == 0 ? x.length : childMin.length;
+            int buckets = (children + FANOUT - 1) / FANOUT;
+            int[] mins = new int[buckets];
+            int[] maxs = new int[buckets];
+            for (int b = 0; b < buckets; b++) {
+                int lo = -1;
+                int hi = -1;
+                int end = Math.min(children, (b + 1) * FANOUT);
+                for (int c = b * FANOUT; c < end; c++) {
+                    int cMin = level == 0 ? c : childMin[c];
+                    int cMax = level == 0 ? c : childMax[c];
+                    if (cMin < 0 || Double.isNaN(y[cMin])) {
+                        continue;
+                    }
+                    if (lo < 0 || y[cMin] < y[lo]) lo = cMin;
+                    if (hi < 0 || y[cMax] > y[hi]) hi = cMax;
+                }
+                mins[b] = lo;
+                maxs[b] = hi;
+            }
+            minIndex[level] = mins;
+            maxIndex[level] = maxs;
+        }
+        return new LodPyramid(x, y, minIndex, maxIndex);
+    }
+
+    int size() {
+        return x.length;
+    }
+
+    /** Number of coarse levels above the raw samples. */
+    int levels() {
+        return minIndex.length;
+    }
+
+    double xMin() {
+        return x.length > 0 ? x[0] : Double.NaN;
+    }
+
+    double xMax() {
+        return x.length > 0 ? x[x.length - 1] : Double.NaN;
+    }
+
+    /** The whole series for a plot area pixelColumns wide. */
+    double[][] overview(int pixelColumns) {
+        return view(0, x.length, pixelColumns);
+    }
+
+    /** Points with xMin <= x <= xMax, about two per pixel column. */
+    double[][] view(double xMin, double xMax, int pixelColumns) {
+        return view(lowerBound(xMin), upperBound(xMax), pixelColumns);
+    }
+
+    /** Level a view of count samples would use (0 = raw samples). */
+    int levelFor(int count, int pixelColumns) {
+        int level = 0;
+        long bucket = FANOUT;
+        while (level < minIndex.length && count / bucket >= pixelColumns) {
+            level++;
+            bucket *= FANOUT;
+        }
+        return level;
+    }
+
+    private double[][] view(int from, int to, int pixelColumns) {
+        int count = to - from;
+        int columns = Math.max(1, pixelColumns);
+        if (count <= 2 * columns + 2) {
+            return new double[][]{Arrays.copyOfRange(x, from, to), Arrays.copyOfRange(y, from, to)};
+        }
+
+        int level = levelFor(count, columns);
+        if (level == 0) {
+            return SeriesDecimator.minMax(x, y, from, to, columns);
+        }
+
+        // Candidates in index order: raw samples in the partial edge buckets,
+        // the extremes of every whole bucket in between
+        int bucketSize = 1;
+        for (int l = 0; l < level; l++) {
+            bucketSize *= FANOUT;
+        }
+        int[] mins = minIndex[level - 1];
+        int[] maxs = maxIndex[level - 1];
+        int firstWhole = (from + bucketSize - 1) / bucketSize;
+        int lastWhole = to / bucketSize; // exclusive
+        int headEnd = Math.min(to, firstWhole * bucketSize);
+        int tailStart = Math.max(headEnd, lastWhole * bucketSize);
+
+        // The range's own first and last sample are always kept
+        int capacity = (headEnd - from) + 2 * Math.max(0, lastWhole - firstWhole) + (to - tailStart) + 2;
+        double[] cx = new double[capacity];
+        double[] cy = new double[capacity];
+        int n = 0;
+        if (headEnd == from) {
+            cx[n] = x[from];
+            cy[n++] = y[from];
+        }
+        for (int i = from; i < headEnd; i++) {
+            cx[n] = x[i];
+            cy[n++] = y[i];
+        }
+        for (int b = firstWhole; b < lastWhole; b++) {
+            int lo = mins[b];
+            if (lo < 0) {
+                continue;
+            }
+            int first = Math.min(lo, maxs[b]);
+            int second = Math.max(lo, maxs[b]);
+            cx[n] = x[first];
+            cy[n++] = y[first];
+            if (second != first) {
+                cx[n] = x[second];
+                cy[n++] = y[second];
+            }
+        }
+        for (int i = tailStart; i < to; i++) {
+            cx[n] = x[i];
+            cy[n++] = y[i];
+        }
+        if (tailStart == to) {
+            cx[n] = x[to - 1];
+            cy[n++] = y[to - 1];
+        }
+        return SeriesDecimator.minMax(cx, cy, 0, n, columns);
+    }
+
+    // First index with x[i] >= v
+    private int lowerBound(double v) {
+        int lo = 0;
+        int hi = x.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (x[mid] < v) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // First index with x[i] > v
+    private int upperBound(double v) {
+        int lo = 0;
+        int hi = x.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (x[mid] <= v) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,65 @@
+import org.knowm.xchart.XYChart;
+import org.knowm.xchart.XYSeries;
+import org.knowm.xchart.internal.series.Series;
+
+/**
+ * XY series backed by a LodPyramid instead of full-resolution arrays.
+ *
+ * XChart's zoom (XYStyler.setZoomEnabled) calls filterXByValue on every
+ * series after a drag-select and resetFilter when the zoom is reset. Here
+ * those calls swap in a fresh pyramid view of the selected x-range at the
+ * chart's current plot width, so zooming in reveals detail down to the raw
+ * samples while the chart only ever holds a few points per pixel.
+ *
+ * Add with LinePlots.addLodSeries.
+ */
+final class LodXYSeries extends XYSeries {
+
+    private final LodPyramid pyramid;
+    private final XYChart chart;
+    private boolean zoomed;
+
+    private LodXYSeries(String name, LodPyramid pyramid, XYChart chart, double[][] overview) {
+        super(name, overview[0], overview[1], null, Series.DataType.Number);
+        this.pyramid = pyramid;
+        this.chart = chart;
+    }
+
+    static LodXYSeries create(String name, LodPyramid pyramid, XYChart chart) {
+        return new LodXYSeries(name, pyramid, chart, pyramid.overview(LinePlots.plotPixelWidth(chart)));
+    }
+
+    LodPyramid pyramid() {
+        return pyramid;
+    }
+
+    @Override
+    public boolean filterXByValue(double minX, double maxX) {
+        double[][] view = pyramid.view(minX, maxX, LinePlots.plotPixelWidth(chart));
+        if (view[0].length == 0) {
+            return false;
+        }
+        replaceData(view[0], view[1], null);
+        ChartImageCache.SHARED.invalidate(chart);
+        zoomed = true;
+        return true;
+    }
+
+    @Override
+    public void resetFilter() {
+        if (zoomed) {
+            double[][] overview = pyramid.overview(LinePlots.plotPixelWidth(chart));
+            replaceData(overview[0], overview[1], null);
+            ChartImageCache.SHARED.invalidate(chart);
+            zoomed = false;
+        } else {
+            super.resetFilter();
+        }
+    }
+
+    /** Zoom treats a series that is not showing all its data as filtered. */
+    @Override
+    public boolean isAllXData() {
+        return !zoomed;
+    }
+}
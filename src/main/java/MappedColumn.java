@@ -0,0 +1,195 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, zero-copy view of a binary file of little-endian doubles or
+ * floats, memory-mapped with FileChannel.map.
+ *
+ * Values are read straight from the mapping (the OS page cache), so heap
+ * use does not depend on file size, and a second pass over the same file
+ * (or a second plot of it) is served from memory. Files larger than 2 GB
+ * are mapped as several 1 GB segments.
+ *
+ * There is no close(): the JDK releases a mapping when its buffer is
+ * garbage collected, and the file channel is closed right after mapping.
+ */
+final class MappedColumn implements ColumnSource {
+
+    enum Type {
+        FLOAT64(3),
+        FLOAT32(2);
+
+        final int shift;
+
+        Type(int shift) {
+            this.shift = shift;
+        }
+
+        int bytes() {
+            return 1 << shift;
+        }
+    }
+
+    /** Default chunk length for forEachChunk (64k values). */
+    static final int DEFAULT_CHUNK = 1 << 16;
+
+    // 1 GB per mapped segment, a power of two so index math is shifts only
+    private static final int SEGMENT_BYTES_SHIFT = 30;
+
+    private final Path file;
+    private final Type type;
+    private final long size;
+    private final ByteBuffer[] segments;
+    private final int segmentShift;
+    private final long segmentMask;
+
+    // Computed on first use (one pass), then reused by every plot of the column
+    private boolean rangeKnown;
+    private double min;
+    private double max;
+
+    private MappedColumn(Path file, Type type, long size, ByteBuffer[] segments, int segmentBytesShift) {
+        this.file = file;
+        this.type = type;
+        this.size = size;
+        this.segments = segments;
+        this.segmentShift = segmentBytesShift - type.shift;
+        this.segmentMask = (1L << segmentShift) - 1;
+    }
+
+    static MappedColumn openDoubles(Path file) throws IOException {
+        return open(file, Type.FLOAT64);
+    }
+
+    static MappedColumn openFloats(Path file) throws IOException {
+        return open(file, Type.FLOAT32);
+    }
+
+    static MappedColumn open(Path file, Type type) throws IOException {
+        return open(file, type, SEGMENT_BYTES_SHIFT);
+    }
+
+    /** Maps file in segments of 2^segmentBytesShift bytes, so tests can cross segment boundaries. */
+    static MappedColumn open(Path file, Type type, int segmentBytesShift) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            if (bytes % type.bytes() != 0) {
+                throw new IOException(file + ": size " + bytes
+                        + " is not a multiple of " + type.bytes() + " bytes (" + type + ")");
+            }
+            long segmentBytes = 1L << segmentBytesShift;
+            int numSegments = (int) ((bytes + segmentBytes - 1) / segmentBytes);
+            ByteBuffer[] segments = new ByteBuffer[numSegments];
+            for (int s = 0; s < numSegments; s++) {
+                long offset = s * segmentBytes;
+                long length = Math.min(segmentBytes, bytes - offset);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                segments[s] = buffer.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new MappedColumn(file, type, bytes / type.bytes(), segments, segmentBytesShift);
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    Type type() {
+        return type;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /** Value at index, read directly from the mapping. */
+    double get(long index) {
+        ByteBuffer segment = segments[(int) (index >>> segmentShift)];
+        int offset = (int) (index & segmentMask) << type.shift;
+        return type == Type.FLOAT64 ? segment.getDouble(offset) : segment.getFloat(offset);
+    }
+
+    /** Copies values [from, from + length) into dst starting at offset. */
+    void copyTo(long from, double[] dst, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = get(from + i);
+        }
+    }
+
+    /** Values [from, from + length) as a new array, e.g. a window for an XY series. */
+    double[] toArray(long from, int length) {
+        double[] result = new double[length];
+        copyTo(from, result, 0, length);
+        return result;
+    }
+
+    /**
+     * Streams the whole column through one reusable buffer of chunkSize
+     * values, for consumers that work on double[] (StreamingHistogram,
+     * QuantileSketch, ...).
+     */
+    void forEachChunk(int chunkSize, ChunkConsumer consumer) {
+        double[] buffer = new double[(int) Math.min(chunkSize, Math.max(1, size))];
+        for (long from = 0; from < size; from += buffer.length) {
+            int length = (int) Math.min(buffer.length, size - from);
+            copyTo(from, buffer, 0, length);
+            consumer.accept(buffer, 0, length);
+        }
+    }
+
+    @Override
+    public void forEachChunk(ChunkConsumer consumer) {
+        forEachChunk(DEFAULT_CHUNK, consumer);
+    }
+
+    /** Counts every value in parallel chunks (see ParallelBinCounter). */
+    @Override
+    public double[] count(BinIndexer indexer) {
+        return ParallelBinCounter.count(size, indexer.numBins(), (from, to, c) -> countInto(indexer, from, to, c));
+    }
+
+    /** Counts values [from, to) into counts; reads the mapping directly. */
+    void countInto(BinIndexer indexer, long from, long to, double[] counts) {
+        for (long i = from; i < to; i++) {
+            int idx = indexer.indexOf(get(i));
+            if (idx >= 0) {
+                counts[idx] += 1.0;
+            }
+        }
+    }
+
+    /** Smallest non-NaN value (0 for an empty column). */
+    @Override
+    public synchronized double min() {
+        computeRange();
+        return min;
+    }
+
+    /** Largest non-NaN value (0 for an empty column). */
+    @Override
+    public synchronized double max() {
+        computeRange();
+        return max;
+    }
+
+    private void computeRange() {
+        if (rangeKnown) {
+            return;
+        }
+        double mn = Double.POSITIVE_INFINITY;
+        double mx = Double.NEGATIVE_INFINITY;
+        for (long i = 0; i < size; i++) {
+            double v = get(i);
+            if (v < mn) mn = v;
+            if (v > mx) mx = v;
+        }
+        min = mn <= mx ? mn : 0.0;
+        max = mn <= mx ? mx : 0.0;
+        rangeKnown = true;
+    }
+}
@@ -0,0 +1,45 @@
+import org.knowm.xchart.XChartPanel;
+import org.knowm.xchart.internal.chartpart.Chart;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+
+/**
+ * XChartPanel whose paints are reported to ChartTelemetry. Charts without
+ * interactive overlays are blitted from ChartImageCache, so showing an
+ * unchanged chart again (e.g. switching back to its tab) does not repaint
+ * it; the others are painted through ChartImageCache.paint, which keeps
+ * the chart's own size.
+ */
+final class MeteredChartPanel<T extends Chart<?, ?>> extends XChartPanel<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    MeteredChartPanel(T chart) {
+        super(chart);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        T chart = getChart();
+        int width = getWidth();
+        int height = getHeight();
+        // A scaled (HiDPI) device needs more pixels than the panel size; draw those live
+        AffineTransform transform = ((Graphics2D) g).getTransform();
+        if (width > 0 && height > 0 && ChartImageCache.isCacheable(chart)
+                && transform.getScaleX() == 1.0 && transform.getScaleY() == 1.0) {
+            g.drawImage(ChartImageCache.SHARED.render(chart, width, height), 0, 0, null);
+            return;
+        }
+        // Zoom, cursor and tooltips draw during the paint, so paint live, but like
+        // ChartImageCache: under the chart's lock and without resizing the chart.
+        // The chart fills the whole panel, so XChartPanel's background fill is not needed
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            ChartTelemetry.paint(chart, width, height, () -> ChartImageCache.paint(chart, g2, width, height));
+        } finally {
+            g2.dispose();
+        }
+    }
+}
@@ -0,0 +1,432 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Histograms of several datasets on one shared set of bins, for overlays
+ * that compare many series.
+ *
+ * All datasets are counted by one fork/join job: each dataset is cut into
+ * chunks, every chunk is a leaf task, and partial results are merged as
+ * the tasks join. The shared bins are either explicit edges (BinIndexer
+ * rules) or a grid of binWidth-wide bins aligned to an anchor; for a grid
+ * each leaf takes the min and max of its chunk and counts it into just
+ * the bins that chunk spans, so the shared range falls out of the merge
+ * instead of needing separate min/max passes. Counts are whole numbers,
+ * so the result is the same as a serial count.
+ *
+ * Counts are one column-major matrix, one column of numBins() counts per
+ * dataset, alongside the shared edges, centers and widths, which are
+ * built once for all datasets.
+ */
+final class MultiHistogram {
+
+    // Smallest chunk handed to a leaf task
+    private static final int MIN_CHUNK = 1 << 16;
+
+    // Leaf tasks per worker, so uneven chunks still balance out
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    // Upper bound on a derived grid, against a tiny bin width or stray outliers
+    private static final long MAX_GRID_BINS = 1 << 24;
+
+    // Grid indices stay exact as doubles and as longs
+    private static final double MAX_GRID_INDEX = 0x1.0p52;
+
+    /** Normalizations of one dataset's counts. */
+    static final class Normalized {
+        /** count / total, sums to 1. */
+        final double[] probability;
+        /** count / (total * width), integrates to 1. */
+        final double[] pdf;
+        /** count / width. */
+        final double[] countDensity;
+
+        private Normalized(double[] probability, double[] pdf, double[] countDensity) {
+            this.probability = probability;
+            this.pdf = pdf;
+            this.countDensity = countDensity;
+        }
+    }
+
+    final double[] edges;
+    final double[] binCenters;
+    final double[] binWidths;
+    // counts[series * numBins() + bin]
+    final double[] counts;
+    final double[] totalCounts;
+    // Smallest and largest finite sample over all datasets (NaN if none)
+    final double min;
+    final double max;
+
+    private MultiHistogram(double[] edges, double[] widths, int series, double[] counts, double min, double max) {
+        int numBins = widths.length;
+        this.edges = edges;
+        this.binWidths = widths;
+        this.binCenters = new double[numBins];
+        for (int i = 0; i < numBins; i++) {
+            binCenters[i] = (edges[i] + edges[i + 1]) / 2.0;
+        }
+        this.counts = counts;
+        this.totalCounts = new double[series];
+        for (int s = 0; s < series; s++) {
+            double sum = 0.0;
+            for (int i = 0; i < numBins; i++) {
+                sum += counts[s * numBins + i];
+            }
+            totalCounts[s] = sum;
+        }
+        this.min = min <= max ? min : Double.NaN;
+        this.max = min <= max ? max : Double.NaN;
+    }
+
+    /**
+     * Bins [anchor + k * binWidth, anchor + (k + 1) * binWidth) for every k
+     * from the bin of the smallest finite sample to that of the largest.
+     * NaN and infinite samples are not counted.
+     */
+    static MultiHistogram withBinWidth(double[][] datasets, double binWidth, double anchor) {
+        if (!(binWidth > 0.0) || !Double.isFinite(binWidth) || !Double.isFinite(anchor)) {
+            throw new IllegalArgumentException("Need a positive bin width and a finite anchor, got "
+                    + binWidth + " and " + anchor);
+        }
+        GridCounter counter = new GridCounter(datasets.length, binWidth, anchor);
+        Partial p = countAll(datasets, counter);
+        long lo = p.lo();
+        int bins = counter.checkBins(p.hi() - lo, p.min, p.max);
+        double[] edges = new double[bins == 0 ? 0 : bins + 1];
+        double[] widths = new double[bins];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = anchor + (lo + i) * binWidth;
+        }
+        for (int i = 0; i < bins; i++) {
+            widths[i] = binWidth;
+        }
+        return new MultiHistogram(edges, widths, datasets.length, p.columns(lo, bins), p.min, p.max);
+    }
+
+    /** Bins between consecutive edges, by the BinIndexer rules. */
+    static MultiHistogram withEdges(double[][] datasets, double[] edges) {
+        if (edges.length < 2) {
+            throw new IllegalArgumentException("Need at least two edges, got " + edges.length);
+        }
+        double[] e = edges.clone();
+        Partial p = countAll(datasets, new EdgeCounter(BinIndexer.forEdges(e)));
+        double[] widths = new double[e.length - 1];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = e[i + 1] - e[i];
+        }
+        return new MultiHistogram(e, widths, datasets.length, p.columns(0, widths.length), p.min, p.max);
+    }
+
+    int numBins() {
+        return binWidths.length;
+    }
+
+    int numSeries() {
+        return totalCounts.length;
+    }
+
+    double count(int series, int bin) {
+        return counts[series * numBins() + bin];
+    }
+
+    /** Probability, PDF and count density of every dataset, in one sweep over the counts. */
+    Normalized[] normalize() {
+        int numBins = numBins();
+        Normalized[] result = new Normalized[numSeries()];
+        for (int s = 0; s < result.length; s++) {
+            double total = totalCounts[s];
+            double[] probability = new double[numBins];
+            double[] pdf = new double[numBins];
+            double[] countDensity = new double[numBins];
+            for (int i = 0; i < numBins; i++) {
+                double c = counts[s * numBins + i];
+                countDensity[i] = c / binWidths[i];
+                if (total > 0.0) {
+                    probability[i] = c / total;
+                    pdf[i] = c / (total * binWidths[i]);
+                }
+            }
+            result[s] = new Normalized(probability, pdf, countDensity);
+        }
+        return result;
+    }
+
+    // ----- Counting -----
+
+    /** One series' counts of grid bins [lo, lo + counts.length). */
+    private static final class Block {
+        static final Block EMPTY = new Block(0, new double[0]);
+
+        final long lo;
+        final double[] counts;
+
+        Block(long lo, double[] counts) {
+            this.lo = lo;
+            this.counts = counts;
+        }
+
+        long hi() {
+            return lo + counts.length;
+        }
+    }
+
+    /**
+     * Counts of consecutive series [first, first + blocks.length), each over
+     * its own block of bins. Leaves hold one series and merges join
+     * neighbouring partials, so a merge adds up at most the one series the
+     * two sides share and just links the others.
+     */
+    private static final class Partial {
+        final int first;
+        final Block[] blocks;
+        final double min;
+        final double max;
+
+        Partial(int first, Block[] blocks, double min, double max) {
+            this.first = first;
+            this.blocks = blocks;
+            this.min = min;
+            this.max = max;
+        }
+
+        /** Lowest bin any series counted into (0 if none). */
+        long lo() {
+            long lo = Long.MAX_VALUE;
+            for (Block b : blocks) {
+                if (b.counts.length > 0) lo = Math.min(lo, b.lo);
+            }
+            return lo == Long.MAX_VALUE ? 0 : lo;
+        }
+
+        /** One past the highest bin any series counted into (0 if none). */
+        long hi() {
+            long hi = Long.MIN_VALUE;
+            for (Block b : blocks) {
+                if (b.counts.length > 0) hi = Math.max(hi, b.hi());
+            }
+            return hi == Long.MIN_VALUE ? 0 : hi;
+        }
+
+        /** The column-major counts over bins [lo, lo + bins) of every series. */
+        double[] columns(long lo, int bins) {
+            double[] counts = new double[blocks.length * bins];
+            for (int s = 0; s < blocks.length; s++) {
+                Block b = blocks[s];
+                System.arraycopy(b.counts, 0, counts, s * bins + (int) (b.lo - lo), b.counts.length);
+            }
+            return counts;
+        }
+    }
+
+    private interface SegmentCounter {
+        Partial count(int series, double[] data, int from, int to);
+
+        /** Sum of two blocks of one series; may reuse either. */
+        Block add(Block a, Block b, double min, double max);
+    }
+
+    private static Partial merge(Partial a, Partial b, SegmentCounter counter) {
+        double min = Math.min(a.min, b.min);
+        double max = Math.max(a.max, b.max);
+        // b starts with a's last series (a dataset split across leaves) or the next one
+        int shared = a.first + a.blocks.length - b.first;
+        Block[] blocks = Arrays.copyOf(a.blocks, a.blocks.length + b.blocks.length - shared);
+        System.arraycopy(b.blocks, shared, blocks, a.blocks.length, b.blocks.length - shared);
+        if (shared == 1) {
+            int last = a.blocks.length - 1;
+            blocks[last] = counter.add(a.blocks[last], b.blocks[0], min, max);
+        }
+        return new Partial(a.first, blocks, min, max);
+    }
+
+    private static Partial countAll(double[][] datasets, SegmentCounter counter) {
+        if (datasets.length == 0) {
+            throw new IllegalArgumentException("Need at least one dataset");
+        }
+        long total = 0;
+        for (double[] d : datasets) {
+            total += d.length;
+        }
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        boolean serial = total < ParallelBinCounter.PARALLEL_THRESHOLD || parallelism < 2;
+        long chunk = serial ? Integer.MAX_VALUE : Math.max(MIN_CHUNK, total / (parallelism * CHUNKS_PER_WORKER));
+
+        // Every dataset contributes at least one segment, so an empty result still has all columns
+        List<int[]> segments = new ArrayList<>();
+        for (int s = 0; s < datasets.length; s++) {
+            int n = datasets[s].length;
+            int from = 0;
+            do {
+                int to = (int) Math.min(n, from + chunk);
+                segments.add(new int[]{s, from, to});
+                from = to;
+            } while (from < n);
+        }
+
+        long values = total;
+        return ChartTelemetry.binning(values, p -> (int) Math.min(Integer.MAX_VALUE, p.hi() - p.lo()), () -> {
+            if (serial) {
+                Partial result = null;
+                for (int[] seg : segments) {
+                    Partial p = counter.count(seg[0], datasets[seg[0]], seg[1], seg[2]);
+                    result = result == null ? p : merge(result, p, counter);
+                }
+                return result;
+            }
+            return ForkJoinPool.commonPool().invoke(new CountTask(datasets, segments, 0, segments.size(), counter));
+        });
+    }
+
+    private static final class CountTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] datasets;
+        private final List<int[]> segments;
+        private final int from;
+        private final int to;
+        private final SegmentCounter counter;
+
+        CountTask(double[][] datasets, List<int[]> segments, int from, int to, SegmentCounter counter) {
+            this.datasets = datasets;
+            this.segments = segments;
+            this.from = from;
+            this.to = to;
+            this.counter = counter;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from == 1) {
+                int[] seg = segments.get(from);
+                return counter.count(seg[0], datasets[seg[0]], seg[1], seg[2]);
+            }
+            int mid = (from + to) >>> 1;
+            CountTask left = new CountTask(datasets, segments, from, mid, counter);
+            CountTask right = new CountTask(datasets, segments, mid, to, counter);
+            left.fork();
+            Partial r = right.compute();
+            return merge(left.join(), r, counter);
+        }
+    }
+
+    /** Fixed edges: every block covers all bins. */
+    private static final class EdgeCounter implements SegmentCounter {
+        private final BinIndexer indexer;
+
+        EdgeCounter(BinIndexer indexer) {
+            this.indexer = indexer;
+        }
+
+        @Override
+        public Partial count(int s, double[] data, int from, int to) {
+            double[] counts = new double[indexer.numBins()];
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                double v = data[i];
+                if (Double.isFinite(v)) {
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+                int idx = indexer.indexOf(v);
+                if (idx >= 0) {
+                    counts[idx] += 1.0;
+                }
+            }
+            return new Partial(s, new Block[]{new Block(0, counts)}, min, max);
+        }
+
+        @Override
+        public Block add(Block a, Block b, double min, double max) {
+            for (int i = 0; i < a.counts.length; i++) {
+                a.counts[i] += b.counts[i];
+            }
+            return a;
+        }
+    }
+
+    /** Anchored grid: blocks cover the bins their samples fell in, and grow as they merge. */
+    private static final class GridCounter implements SegmentCounter {
+        private final int series;
+        private final double binWidth;
+        private final double anchor;
+
+        GridCounter(int series, double binWidth, double anchor) {
+            this.series = series;
+            this.binWidth = binWidth;
+            this.anchor = anchor;
+        }
+
+        private double gridIndex(double v) {
+            return Math.floor((v - anchor) / binWidth);
+        }
+
+        @Override
+        public Partial count(int s, double[] data, int from, int to) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                double v = data[i];
+                if (Double.isFinite(v)) {
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+            }
+            if (!(min <= max)) {
+                return new Partial(s, new Block[]{Block.EMPTY}, min, max);
+            }
+            double kLo = gridIndex(min);
+            double kHi = gridIndex(max);
+            if (!(Math.abs(kLo) <= MAX_GRID_INDEX && Math.abs(kHi) <= MAX_GRID_INDEX)) {
+                throw new IllegalArgumentException("Samples in [" + min + ", " + max
+                        + "] are too far from anchor " + anchor + " for bin width " + binWidth);
+            }
+            double[] counts = new double[checkBins(kHi - kLo + 1.0, min, max)];
+            for (int i = from; i < to; i++) {
+                double v = data[i];
+                if (Double.isFinite(v)) {
+                    // floor((v - anchor) / binWidth) is monotonic in v, so this is in [0, bins)
+                    counts[(int) (gridIndex(v) - kLo)] += 1.0;
+                }
+            }
+            return new Partial(s, new Block[]{new Block((long) kLo, counts)}, min, max);
+        }
+
+        @Override
+        public Block add(Block a, Block b, double min, double max) {
+            if (b.counts.length == 0) {
+                return a;
+            }
+            if (a.counts.length == 0) {
+                return b;
+            }
+            long lo = Math.min(a.lo, b.lo);
+            int bins = checkBins(Math.max(a.hi(), b.hi()) - lo, min, max);
+            Block sum = lo == a.lo && bins == a.counts.length ? a : new Block(lo, new double[bins]);
+            if (sum != a) {
+                addInto(a, sum);
+            }
+            addInto(b, sum);
+            return sum;
+        }
+
+        private static void addInto(Block from, Block to) {
+            int offset = (int) (from.lo - to.lo);
+            for (int i = 0; i < from.counts.length; i++) {
+                to.counts[offset + i] += from.counts[i];
+            }
+        }
+
+        int checkBins(double bins, double min, double max) {
+            if (!(bins <= MAX_GRID_BINS) || bins * series > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Bin width " + binWidth + " gives too many bins for the range ["
+                        + min + ", " + max + "] of " + series + " series");
+            }
+            return (int) bins;
+        }
+    }
+}
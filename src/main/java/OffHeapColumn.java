@@ -0,0 +1,429 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * A column of doubles in native memory, outside the Java heap, with an
+ * explicit lifetime: it holds memory until close().
+ *
+ * Samples never count against the heap or get scanned or copied by the
+ * GC, so a service can generate, bin and decimate billions of samples
+ * with a heap sized for its charts. The data is several direct buffers of
+ * up to 1 GB each (like MappedColumn's segments). close() frees them at
+ * once rather than waiting for the buffers to be collected. After close
+ * every access throws IllegalStateException. Reads and writes hold a read
+ * lock for a whole chunk, and close() waits for them, so memory is never
+ * freed under a running pass.
+ *
+ * Direct memory is capped by -XX:MaxDirectMemorySize, which defaults to
+ * the maximum heap size; raise it for columns larger than the heap.
+ */
+final class OffHeapColumn implements ColumnSource, AutoCloseable {
+
+    /** Default chunk length for forEachChunk and the parallel fills (64k values). */
+    static final int DEFAULT_CHUNK = 1 << 16;
+
+    // 2^27 doubles (1 GB) per buffer, a power of two so index math is shifts only
+    private static final int SEGMENT_SHIFT = 27;
+
+    // Releases a direct buffer's memory now (Unsafe.invokeCleaner), or null if unavailable
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    // Per-thread chunk buffer for the parallel fills, which write parallelChunks or ParallelRandom chunks
+    private static final ThreadLocal<double[]> SCRATCH =
+            ThreadLocal.withInitial(() -> new double[Math.max(DEFAULT_CHUNK, ParallelRandom.CHUNK)]);
+
+    private final long size;
+    private final int segmentShift;
+    private final long segmentMask;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private ByteBuffer[] buffers;
+    private DoubleBuffer[] segments;
+
+    // Computed on first use (one pass), then reused by every plot of the column
+    private boolean rangeKnown;
+    private double min;
+    private double max;
+
+    private OffHeapColumn(long size) {
+        this(size, SEGMENT_SHIFT);
+    }
+
+    private OffHeapColumn(long size, int segmentShift) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative size: " + size);
+        }
+        this.size = size;
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1L << segmentShift) - 1;
+        int numSegments = Math.toIntExact((size + segmentMask) >>> segmentShift);
+        buffers = new ByteBuffer[numSegments];
+        segments = new DoubleBuffer[numSegments];
+        try {
+            for (int s = 0; s < numSegments; s++) {
+                long length = Math.min(1L << segmentShift, size - ((long) s << segmentShift));
+                buffers[s] = ByteBuffer.allocateDirect((int) length * Double.BYTES).order(ByteOrder.nativeOrder());
+                segments[s] = buffers[s].asDoubleBuffer();
+            }
+        } catch (OutOfMemoryError e) {
+            free(buffers);
+            throw e;
+        }
+    }
+
+    /** size zeros. */
+    static OffHeapColumn allocate(long size) {
+        return new OffHeapColumn(size);
+    }
+
+    /** size zeros in buffers of 2^segmentShift values, so tests can cross buffer boundaries. */
+    static OffHeapColumn allocate(long size, int segmentShift) {
+        return new OffHeapColumn(size, segmentShift);
+    }
+
+    /** size samples of N(mean, stdDev^2), the same values ParallelRandom.normal draws from root. */
+    static OffHeapColumn normal(SplittableGenerator root, long size, double mean, double stdDev) {
+        OffHeapColumn column = new OffHeapColumn(size);
+        try {
+            ParallelRandom.forEachChunk(root, size, (rng, from, length) -> {
+                double[] buffer = SCRATCH.get();
+                for (int i = 0; i < length; i++) {
+                    buffer[i] = mean + stdDev * ZigguratNormal.next(rng);
+                }
+                column.write(from, buffer, 0, length);
+            });
+        } catch (RuntimeException | Error e) {
+            column.close();
+            throw e;
+        }
+        return column;
+    }
+
+    /** size samples uniform in [min, max), the same values ParallelRandom.uniform draws from root. */
+    static OffHeapColumn uniform(SplittableGenerator root, long size, double min, double max) {
+        OffHeapColumn column = new OffHeapColumn(size);
+        try {
+            ParallelRandom.forEachChunk(root, size, (rng, from, length) -> {
+                double[] buffer = SCRATCH.get();
+                for (int i = 0; i < length; i++) {
+                    buffer[i] = rng.nextDouble(min, max);
+                }
+                column.write(from, buffer, 0, length);
+            });
+        } catch (RuntimeException | Error e) {
+            column.close();
+            throw e;
+        }
+        return column;
+    }
+
+    /** num evenly spaced values over [start, end], identical to ArrayKernels.linspace. */
+    static OffHeapColumn linspace(double start, double end, long num) {
+        OffHeapColumn column = new OffHeapColumn(num);
+        if (num == 1) {
+            column.write(0, new double[]{start}, 0, 1);
+            return column;
+        }
+        double step = (end - start) / (num - 1);
+        try {
+            parallelChunks(num, (from, length) -> {
+                double[] buffer = SCRATCH.get();
+                for (int i = 0; i < length; i++) {
+                    buffer[i] = start + step * (from + i);
+                }
+                column.write(from, buffer, 0, length);
+            });
+        } catch (RuntimeException | Error e) {
+            column.close();
+            throw e;
+        }
+        return column;
+    }
+
+    /** A new column with kernel applied to every value; this column is unchanged. */
+    OffHeapColumn map(ArrayKernels.Kernel kernel) {
+        OffHeapColumn result = new OffHeapColumn(size);
+        try {
+            parallelChunks(size, (from, length) -> {
+                double[] buffer = SCRATCH.get();
+                copyTo(from, buffer, 0, length);
+                ArrayKernels.applySerial(kernel, buffer, buffer, 0, length);
+                result.write(from, buffer, 0, length);
+            });
+        } catch (RuntimeException | Error e) {
+            result.close();
+            throw e;
+        }
+        return result;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /** Value at index. Takes the lock; use the bulk methods for passes. */
+    double get(long index) {
+        checkIndex(index, 1);
+        ReentrantReadWriteLock.ReadLock read = open();
+        try {
+            return segments[(int) (index >>> segmentShift)].get((int) (index & segmentMask));
+        } finally {
+            read.unlock();
+        }
+    }
+
+    /** Copies src[offset, offset + length) into values [from, from + length). */
+    void write(long from, double[] src, int offset, int length) {
+        checkIndex(from, length);
+        ReentrantReadWriteLock.ReadLock read = open();
+        try {
+            while (length > 0) {
+                int n = Math.min(length, segmentRemaining(from));
+                segments[(int) (from >>> segmentShift)].put((int) (from & segmentMask), src, offset, n);
+                from += n;
+                offset += n;
+                length -= n;
+            }
+        } finally {
+            read.unlock();
+        }
+        synchronized (this) {
+            rangeKnown = false;
+        }
+    }
+
+    /** Copies values [from, from + length) into dst starting at offset. */
+    void copyTo(long from, double[] dst, int offset, int length) {
+        checkIndex(from, length);
+        ReentrantReadWriteLock.ReadLock read = open();
+        try {
+            while (length > 0) {
+                int n = Math.min(length, segmentRemaining(from));
+                segments[(int) (from >>> segmentShift)].get((int) (from & segmentMask), dst, offset, n);
+                from += n;
+                offset += n;
+                length -= n;
+            }
+        } finally {
+            read.unlock();
+        }
+    }
+
+    /** Values [from, from + length) as a new array, e.g. a window for an XY series. */
+    double[] toArray(long from, int length) {
+        double[] result = new double[length];
+        copyTo(from, result, 0, length);
+        return result;
+    }
+
+    /**
+     * Streams values [from, to) through one reusable buffer of chunkSize
+     * values, for consumers that work on double[] (QuantileSketch, ...).
+     */
+    void forEachChunk(long from, long to, int chunkSize, ChunkConsumer consumer) {
+        double[] buffer = new double[(int) Math.max(1, Math.min(chunkSize, to - from))];
+        for (long start = from; start < to; start += buffer.length) {
+            int length = (int) Math.min(buffer.length, to - start);
+            copyTo(start, buffer, 0, length);
+            consumer.accept(buffer, 0, length);
+        }
+    }
+
+    @Override
+    public void forEachChunk(ChunkConsumer consumer) {
+        forEachChunk(0, size, DEFAULT_CHUNK, consumer);
+    }
+
+    /** Counts every value in parallel chunks (see ParallelBinCounter). */
+    @Override
+    public double[] count(BinIndexer indexer) {
+        return ParallelBinCounter.count(size, indexer.numBins(), (from, to, c) -> countInto(indexer, from, to, c));
+    }
+
+    /** Counts values [from, to) into counts; reads native memory directly. */
+    void countInto(BinIndexer indexer, long from, long to, double[] counts) {
+        checkIndex(from, to - from);
+        ReentrantReadWriteLock.ReadLock read = open();
+        try {
+            while (from < to) {
+                DoubleBuffer segment = segments[(int) (from >>> segmentShift)];
+                int start = (int) (from & segmentMask);
+                int end = start + (int) Math.min(to - from, segmentRemaining(from));
+                for (int i = start; i < end; i++) {
+                    int idx = indexer.indexOf(segment.get(i));
+                    if (idx >= 0) {
+                        counts[idx] += 1.0;
+                    }
+                }
+                from += end - start;
+            }
+        } finally {
+            read.unlock();
+        }
+    }
+
+    /** Smallest non-NaN value (0 for an empty column). */
+    @Override
+    public synchronized double min() {
+        computeRange();
+        return min;
+    }
+
+    /** Largest non-NaN value (0 for an empty column). */
+    @Override
+    public synchronized double max() {
+        computeRange();
+        return max;
+    }
+
+    private void computeRange() {
+        if (rangeKnown) {
+            return;
+        }
+        double[] range = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        forEachChunk((buffer, from, to) -> {
+            for (int i = from; i < to; i++) {
+                double v = buffer[i];
+                if (v < range[0]) range[0] = v;
+                if (v > range[1]) range[1] = v;
+            }
+        });
+        min = range[0] <= range[1] ? range[0] : 0.0;
+        max = range[0] <= range[1] ? range[1] : 0.0;
+        rangeKnown = true;
+    }
+
+    boolean isOpen() {
+        lock.readLock().lock();
+        try {
+            return segments != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Frees the native memory, after any running reads or writes finish. Idempotent. */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (segments == null) {
+                return;
+            }
+            ByteBuffer[] toFree = buffers;
+            segments = null;
+            buffers = null;
+            free(toFree);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+
+    private ReentrantReadWriteLock.ReadLock open() {
+        ReentrantReadWriteLock.ReadLock read = lock.readLock();
+        read.lock();
+        if (segments == null) {
+            read.unlock();
+            throw new IllegalStateException("Column is closed");
+        }
+        return read;
+    }
+
+    private void checkIndex(long from, long length) {
+        if (from < 0 || length < 0 || from > size - length) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + (from + length)
+                    + ") out of bounds for column of " + size);
+        }
+    }
+
+    private int segmentRemaining(long index) {
+        return (int) ((1L << segmentShift) - (index & segmentMask));
+    }
+
+    private static void free(ByteBuffer[] buffers) {
+        if (INVOKE_CLEANER == null) {
+            return; // freed when the buffers are collected
+        }
+        for (ByteBuffer b : buffers) {
+            if (b != null) {
+                try {
+                    INVOKE_CLEANER.invokeExact(b);
+                } catch (Throwable t) {
+                    throw new IllegalStateException("Could not free off-heap column", t);
+                }
+            }
+        }
+    }
+
+    private static MethodHandle invokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // e.g. jdk.unsupported not in the image; buffers are then freed by the GC
+            return null;
+        }
+    }
+
+    // ----- Parallel chunk loop -----
+
+    private interface ChunkAction {
+        void run(long from, int length);
+    }
+
+    private static void parallelChunks(long size, ChunkAction action) {
+        long chunks = (size + DEFAULT_CHUNK - 1) / DEFAULT_CHUNK;
+        if (chunks < 2 || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            for (long c = 0; c < chunks; c++) {
+                runChunk(size, c, action);
+            }
+        } else {
+            ForkJoinPool.commonPool().invoke(new ChunkTask(size, 0, chunks, action));
+        }
+    }
+
+    private static void runChunk(long size, long chunk, ChunkAction action) {
+        long from = chunk * DEFAULT_CHUNK;
+        action.run(from, (int) Math.min(DEFAULT_CHUNK, size - from));
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long size;
+        private final long from;
+        private final long to;
+        private final ChunkAction action;
+
+        ChunkTask(long size, long from, long to, ChunkAction action) {
+            this.size = size;
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                runChunk(size, from, action);
+                return;
+            }
+            long mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(size, from, mid, action), new ChunkTask(size, mid, to, action));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork/join bin counting for large sample arrays and mapped columns.
+ *
+ * The input is split into chunks; each leaf task counts its chunk into a
+ * private double[] and partial arrays are summed while the tasks join.
+ * There is no shared state and no atomics. Counts are whole numbers, so
+ * the merged result is exactly what a single serial pass would produce.
+ */
+final class ParallelBinCounter {
+
+    /** Inputs shorter than this are counted serially on the calling thread. */
+    static final int PARALLEL_THRESHOLD = 1 << 18;
+
+    // Smallest chunk handed to a leaf task
+    private static final int MIN_CHUNK = 1 << 16;
+
+    // Leaf tasks per worker, so uneven chunks still balance out
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    /** Counts samples data[from, to) into counts (indices 0 .. numBins-1). */
+    interface ChunkCounter {
+        void count(double[] data, int from, int to, double[] counts);
+    }
+
+    /** Counts the samples with indices [from, to) of some column into counts. */
+    interface RangeCounter {
+        void count(long from, long to, double[] counts);
+    }
+
+    private ParallelBinCounter() {
+    }
+
+    static double[] count(double[] data, int numBins, ChunkCounter counter) {
+        return count(data.length, numBins,
+                (from, to, counts) -> counter.count(data, (int) from, (int) to, counts));
+    }
+
+    static double[] count(long size, int numBins, RangeCounter counter) {
+        return ChartTelemetry.binning(size, numBins, () -> countChunks(size, numBins, counter));
+    }
+
+    private static double[] countChunks(long size, int numBins, RangeCounter counter) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (size < PARALLEL_THRESHOLD || parallelism < 2) {
+            double[] counts = new double[numBins];
+            counter.count(0, size, counts);
+            return counts;
+        }
+        long chunk = Math.max(MIN_CHUNK, size / (parallelism * CHUNKS_PER_WORKER));
+        return ForkJoinPool.commonPool().invoke(
+                new CountTask(0, size, chunk, numBins, counter));
+    }
+
+    private static final class CountTask extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+        private final long chunk;
+        private final int numBins;
+        private final RangeCounter counter;
+
+        CountTask(long from, long to, long chunk, int numBins, RangeCounter counter) {
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.numBins = numBins;
+            this.counter = counter;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from <= chunk) {
+                double[] counts = new double[numBins];
+                counter.count(from, to, counts);
+                return counts;
+            }
+            long mid = (from + to) >>> 1;
+            CountTask left = new CountTask(from, mid, chunk, numBins, counter);
+            CountTask right = new CountTask(mid, to, chunk, numBins, counter);
+            left.fork();
+            double[] counts = right.compute();
+            double[] leftCounts = left.join();
+            for (int i = 0; i < numBins; i++) {
+                counts[i] += leftCounts[i];
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Reproducible parallel random fills on the JDK 17 generator family.
+ *
+ * An array is cut into fixed CHUNK-sized pieces, and piece k is filled
+ * from the k-th generator split off the root. The splits are taken in
+ * order on the calling thread (one per CHUNK samples, so cheap), then the
+ * pieces are filled on the caller's fork/join pool (the common pool
+ * outside one). Which thread fills a piece never matters, so the output
+ * for a given seed is bit-identical whatever the parallelism. Normals come
+ * from ZigguratNormal.
+ *
+ * Each fill advances the root by one split per piece, so consecutive
+ * fills from the same root draw different data, as with java.util.Random.
+ */
+final class ParallelRandom {
+
+    /** LXM generator: splittable, statistically strong, no shared state. */
+    static final String ALGORITHM = "L64X128MixRandom";
+
+    /** Samples per split; fixed, since it decides which generator draws which sample. */
+    static final int CHUNK = 1 << 16;
+
+    private ParallelRandom() {
+    }
+
+    /** A root generator for seed. */
+    static SplittableGenerator create(long seed) {
+        return RandomGeneratorFactory.<SplittableGenerator>of(ALGORITHM).create(seed);
+    }
+
+    /** n samples of N(mean, stdDev^2). */
+    static double[] normal(SplittableGenerator root, int n, double mean, double stdDev) {
+        double[] data = new double[n];
+        fill(root, data, (rng, out, from, to) -> {
+            for (int i = from; i < to; i++) {
+                out[i] = mean + stdDev * ZigguratNormal.next(rng);
+            }
+        });
+        return data;
+    }
+
+    /** n samples uniform in [min, max). */
+    static double[] uniform(SplittableGenerator root, int n, double min, double max) {
+        double[] data = new double[n];
+        fill(root, data, (rng, out, from, to) -> {
+            for (int i = from; i < to; i++) {
+                out[i] = rng.nextDouble(min, max);
+            }
+        });
+        return data;
+    }
+
+    /** Fills out[from, to) from rng. */
+    interface ChunkFiller {
+        void fill(RandomGenerator rng, double[] out, int from, int to);
+    }
+
+    static void fill(SplittableGenerator root, double[] out, ChunkFiller filler) {
+        forEachChunk(root, out.length, (rng, from, length) -> filler.fill(rng, out, (int) from, (int) from + length));
+    }
+
+    /** Fills samples [from, from + length) of some output from rng. */
+    interface ChunkJob {
+        void run(RandomGenerator rng, long from, int length);
+    }
+
+    /**
+     * Runs job once per CHUNK-sized piece of a size-sample output, with the
+     * same pieces and generators as fill, for outputs that are not a
+     * double[] (see OffHeapColumn).
+     */
+    static void forEachChunk(SplittableGenerator root, long size, ChunkJob job) {
+        int chunks = Math.toIntExact((size + CHUNK - 1) / CHUNK);
+        RandomGenerator[] generators = new RandomGenerator[chunks];
+        for (int c = 0; c < chunks; c++) {
+            generators[c] = root.split();
+        }
+        ForkJoinPool pool = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+        if (chunks < 2 || pool.getParallelism() < 2) {
+            for (int c = 0; c < chunks; c++) {
+                runChunk(generators, c, size, job);
+            }
+        } else if (ForkJoinTask.inForkJoinPool()) {
+            new FillTask(generators, 0, chunks, size, job).invoke();
+        } else {
+            pool.invoke(new FillTask(generators, 0, chunks, size, job));
+        }
+    }
+
+    private static void runChunk(RandomGenerator[] generators, int chunk, long size, ChunkJob job) {
+        long from = (long) chunk * CHUNK;
+        job.run(generators[chunk], from, (int) Math.min(CHUNK, size - from));
+    }
+
+    private static final class FillTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RandomGenerator[] generators;
+        private final int from;
+        private final int to;
+        private final long size;
+        private final ChunkJob job;
+
+        FillTask(RandomGenerator[] generators, int from, int to, long size, ChunkJob job) {
+            this.generators = generators;
+            this.from = from;
+            this.to = to;
+            this.size = size;
+            this.job = job;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                runChunk(generators, from, size, job);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FillTask(generators, from, mid, size, job),
+                      new FillTask(generators, mid, to, size, job));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.Arrays;
+
+/**
+ * A sample array together with the summary statistics the binning rules
+ * and histogram builders need.
+ *
+ * min, max, mean and variance are computed in one fused pass (Welford).
+ * The sorted copy used by percentile-based rules is built on first use and
+ * shared afterwards, so comparing several binning rules on the same data
+ * costs one pass plus at most one sort.
+ *
+ * The array is wrapped, not copied, and must not be modified afterwards.
+ * Like the DoubleStream-based helpers, any NaN makes min, max, mean and
+ * variance NaN; an empty array has min = max = mean = 0.
+ */
+final class PreparedDataset {
+
+    private final double[] data;
+    private final double min;
+    private final double max;
+    private final double mean;
+    private final double variance;
+
+    private double[] sorted;
+
+    private PreparedDataset(double[] data) {
+        this.data = data;
+
+        double mn = Double.POSITIVE_INFINITY;
+        double mx = Double.NEGATIVE_INFINITY;
+        double m = 0.0;
+        double m2 = 0.0;
+        boolean hasNaN = false;
+        for (int i = 0; i < data.length; i++) {
+            double v = data[i];
+            if (Double.isNaN(v)) {
+                hasNaN = true;
+                continue;
+            }
+            if (v < mn) mn = v;
+            if (v > mx) mx = v;
+            double d = v - m;
+            m += d / (i + 1);
+            m2 += d * (v - m);
+        }
+
+        if (hasNaN) {
+            this.min = Double.NaN;
+            this.max = Double.NaN;
+            this.mean = Double.NaN;
+            this.variance = Double.NaN;
+        } else if (data.length == 0) {
+            this.min = 0.0;
+            this.max = 0.0;
+            this.mean = 0.0;
+            this.variance = Double.NaN;
+        } else {
+            this.min = mn;
+            this.max = mx;
+            this.mean = m;
+            this.variance = data.length > 1 ? m2 / (data.length - 1) : Double.NaN;
+        }
+    }
+
+    static PreparedDataset of(double[] data) {
+        return new PreparedDataset(data);
+    }
+
+    double[] data() {
+        return data;
+    }
+
+    int size() {
+        return data.length;
+    }
+
+    double min() {
+        return min;
+    }
+
+    double max() {
+        return max;
+    }
+
+    double mean() {
+        return mean;
+    }
+
+    /** Sample variance (n - 1); NaN for fewer than two samples. */
+    double variance() {
+        return variance;
+    }
+
+    double stdDev() {
+        return Math.sqrt(variance);
+    }
+
+    /** Ascending copy of the data, sorted on the first call and cached. */
+    synchronized double[] sorted() {
+        if (sorted == null) {
+            double[] copy = data.clone();
+            Arrays.sort(copy);
+            sorted = copy;
+        }
+        return sorted;
+    }
+
+    synchronized boolean hasSortedView() {
+        return sorted != null;
+    }
+}
@@ -0,0 +1,247 @@
+import java.util.Arrays;
+
+/**
+ * Mergeable streaming quantile sketch (KLL-style compactors).
+ *
+ * Samples go into level 0. When the sketch is over capacity, the lowest
+ * full level is sorted and every other item is promoted to the next level,
+ * where each item stands for twice as many samples. Level capacities shrink
+ * geometrically towards level 0, so the sketch holds O(k) values plus a
+ * handful per level, independent of how many samples were added.
+ *
+ * Rank error shrinks like 1/k; the default k = 200 keeps quartiles within
+ * roughly 1% of the true rank. min, max and count are exact.
+ *
+ * Sketches built on separate chunks can be merged; the result has the same
+ * error guarantee as a sketch fed the concatenated data. Not thread-safe:
+ * use one sketch per thread and merge.
+ */
+final class QuantileSketch {
+
+    static final int DEFAULT_K = 200;
+
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+    private static final int MIN_LEVEL_CAPACITY = 2;
+
+    private final int k;
+
+    // levels[h] holds sizes[h] values, each standing for 2^h samples
+    private double[][] levels;
+    private int[] sizes;
+    private int numLevels;
+    private int retained;
+    private int capacity;
+
+    private long n;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    // Fixed-seed coin for compaction offsets, so results are reproducible
+    private long coin = 0x9E3779B97F4A7C15L;
+
+    QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    QuantileSketch(int k) {
+        if (k < 8) {
+            throw new IllegalArgumentException("k must be at least 8, got " + k);
+        }
+        this.k = k;
+        this.levels = new double[][]{new double[k]};
+        this.sizes = new int[1];
+        this.numLevels = 1;
+        this.capacity = totalCapacity();
+    }
+
+    /** Sketch of every non-NaN value in data. */
+    static QuantileSketch of(double[] data) {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.addAll(data, 0, data.length);
+        return sketch;
+    }
+
+    // ----- Input -----
+
+    /** Adds one sample; NaN is ignored. */
+    void add(double v) {
+        if (Double.isNaN(v)) {
+            return;
+        }
+        n++;
+        if (v < min) min = v;
+        if (v > max) max = v;
+        append(0, v);
+        if (retained > capacity) {
+            compress();
+        }
+    }
+
+    void addAll(double[] data, int from, int to) {
+        for (int i = from; i < to; i++) {
+            add(data[i]);
+        }
+    }
+
+    /** Folds other into this sketch; other is left unchanged. */
+    void merge(QuantileSketch other) {
+        if (other.n == 0) {
+            return;
+        }
+        for (int h = 0; h < other.numLevels; h++) {
+            while (h >= numLevels) {
+                addLevel();
+            }
+            for (int i = 0; i < other.sizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        n += other.n;
+        if (other.min < min) min = other.min;
+        if (other.max > max) max = other.max;
+        while (retained > capacity) {
+            compress();
+        }
+    }
+
+    // ----- Queries -----
+
+    long count() {
+        return n;
+    }
+
+    double min() {
+        return n > 0 ? min : Double.NaN;
+    }
+
+    double max() {
+        return n > 0 ? max : Double.NaN;
+    }
+
+    /** Approximate q-quantile, q in [0, 1]; NaN if the sketch is empty. */
+    double quantile(double q) {
+        return quantiles(q)[0];
+    }
+
+    /** Approximate quantiles for several q values with one sorted pass. */
+    double[] quantiles(double... qs) {
+        double[] result = new double[qs.length];
+        if (n == 0) {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+
+        // Sort each level once, then walk them in merged order
+        double[][] sorted = new double[numLevels][];
+        for (int h = 0; h < numLevels; h++) {
+            sorted[h] = Arrays.copyOf(levels[h], sizes[h]);
+            Arrays.sort(sorted[h]);
+        }
+        int[] pos = new int[numLevels];
+
+        for (int j = 0; j < qs.length; j++) {
+            result[j] = qs[j] <= 0.0 ? min : (qs[j] >= 1.0 ? max : Double.NaN);
+        }
+
+        long weight = 0;
+        int remaining = 0;
+        for (double r : result) {
+            if (Double.isNaN(r)) remaining++;
+        }
+        while (remaining > 0) {
+            int best = -1;
+            for (int h = 0; h < numLevels; h++) {
+                if (pos[h] < sorted[h].length
+                        && (best < 0 || sorted[h][pos[h]] < sorted[best][pos[best]])) {
+                    best = h;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            double value = sorted[best][pos[best]++];
+            weight += 1L << best;
+            for (int j = 0; j < qs.length; j++) {
+                if (Double.isNaN(result[j]) && weight >= qs[j] * n) {
+                    result[j] = value;
+                    remaining--;
+                }
+            }
+        }
+        for (int j = 0; j < qs.length; j++) {
+            if (Double.isNaN(result[j])) {
+                result[j] = max;
+            }
+        }
+        return result;
+    }
+
+    // ----- Compaction -----
+
+    private void append(int level, double v) {
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], Math.max(MIN_LEVEL_CAPACITY, 2 * sizes[level]));
+        }
+        levels[level][sizes[level]++] = v;
+        retained++;
+    }
+
+    private void addLevel() {
+        levels = Arrays.copyOf(levels, numLevels + 1);
+        sizes = Arrays.copyOf(sizes, numLevels + 1);
+        levels[numLevels] = new double[MIN_LEVEL_CAPACITY];
+        numLevels++;
+        capacity = totalCapacity();
+    }
+
+    /** Halves the lowest level that has reached its capacity. */
+    private void compress() {
+        for (int h = 0; h < numLevels; h++) {
+            if (sizes[h] < levelCapacity(h)) {
+                continue;
+            }
+            if (h + 1 == numLevels) {
+                addLevel();
+            }
+            double[] items = levels[h];
+            int size = sizes[h];
+            Arrays.sort(items, 0, size);
+
+            // An odd item out stays behind on this level
+            int pairs = size / 2;
+            int offset = nextCoin();
+            for (int i = 0; i < pairs; i++) {
+                append(h + 1, items[2 * i + offset]);
+            }
+            if ((size & 1) != 0) {
+                items[0] = items[size - 1];
+                sizes[h] = 1;
+            } else {
+                sizes[h] = 0;
+            }
+            retained -= 2 * pairs;
+            return;
+        }
+    }
+
+    private int levelCapacity(int level) {
+        int depth = numLevels - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private int totalCapacity() {
+        int total = 0;
+        for (int h = 0; h < numLevels; h++) {
+            total += levelCapacity(h);
+        }
+        return total;
+    }
+
+    private int nextCoin() {
+        // xorshift64
+        coin ^= coin << 13;
+        coin ^= coin >>> 7;
+        coin ^= coin << 17;
+        return (int) (coin >>> 63);
+    }
+}
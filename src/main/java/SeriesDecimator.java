@@ -0,0 +1,427 @@
+import java.util.Arrays;
+
+/**
+ * Reduces large XY series to roughly one or two points per pixel column
+ * before they are handed to XYChart.addSeries.
+ *
+ * Two modes:
+ *   - LTTB (Largest-Triangle-Three-Buckets): picks, per bucket, the point
+ *     forming the largest triangle with its neighbours; keeps the visual
+ *     shape of smooth lines with the fewest points.
+ *   - MIN_MAX: keeps the lowest and highest point of every pixel column,
+ *     so no spike or dip can disappear; the drawn envelope is exact.
+ *
+ * Both are single O(n) passes that allocate only the output. NaN samples
+ * are skipped. Results are {x, y} pairs of new arrays; the input arrays are
+ * returned unchanged (not copied) when they are already small enough.
+ */
+final class SeriesDecimator {
+
+    enum Mode {
+        LTTB,
+        MIN_MAX
+    }
+
+    private SeriesDecimator() {
+    }
+
+    /** Decimates the whole series for a plot area pixelColumns wide. */
+    static double[][] decimate(double[] x, double[] y, int pixelColumns, Mode mode) {
+        return decimate(x, y, 0, x.length, pixelColumns, mode);
+    }
+
+    /** Decimates points [from, to) of the series. */
+    static double[][] decimate(double[] x, double[] y, int from, int to, int pixelColumns, Mode mode) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("x and y lengths differ: " + x.length + " vs " + y.length);
+        }
+        return mode == Mode.LTTB
+                ? lttb(x, y, from, to, 2 * pixelColumns)
+                : minMax(x, y, from, to, pixelColumns);
+    }
+
+    // ----- Largest-Triangle-Three-Buckets -----
+
+    /**
+     * Picks threshold points out of [from, to): the first and last point,
+     * plus one per equal-count bucket in between.
+     */
+    static double[][] lttb(double[] x, double[] y, int from, int to, int threshold) {
+        int n = to - from;
+        if (threshold >= n || threshold < 3) {
+            return range(x, y, from, to);
+        }
+
+        double[] outX = new double[threshold];
+        double[] outY = new double[threshold];
+        outX[0] = x[from];
+        outY[0] = y[from];
+
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = from;
+        for (int i = 0; i < threshold - 2; i++) {
+            // Average of the next bucket is the third triangle vertex
+            int avgStart = from + (int) ((i + 1) * every) + 1;
+            int avgEnd = Math.min(from + (int) ((i + 2) * every) + 1, to);
+            double avgX = 0.0;
+            double avgY = 0.0;
+            int avgCount = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                if (!Double.isNaN(y[j])) {
+                    avgX += x[j];
+                    avgY += y[j];
+                    avgCount++;
+                }
+            }
+            if (avgCount > 0) {
+                avgX /= avgCount;
+                avgY /= avgCount;
+            } else {
+                avgX = x[to - 1];
+                avgY = y[to - 1];
+            }
+
+            int bucketStart = from + (int) (i * every) + 1;
+            int bucketEnd = from + (int) ((i + 1) * every) + 1;
+            double ax = x[a];
+            double ay = y[a];
+            double maxArea = -1.0;
+            int next = bucketStart;
+            for (int j = bucketStart; j < bucketEnd; j++) {
+                // Twice the triangle area; the factor does not change the argmax
+                double area = Math.abs((ax - avgX) * (y[j] - ay) - (ax - x[j]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            outX[i + 1] = x[next];
+            outY[i + 1] = y[next];
+            a = next;
+        }
+
+        outX[threshold - 1] = x[to - 1];
+        outY[threshold - 1] = y[to - 1];
+        return new double[][]{outX, outY};
+    }
+
+    // ----- Per-column min / max -----
+
+    /**
+     * Keeps the first and last point plus the min and max of every column,
+     * in their original order. Columns split the x range evenly when x is
+     * ascending, otherwise they split the index range.
+     */
+    static double[][] minMax(double[] x, double[] y, int from, int to, int columns) {
+        int n = to - from;
+        if (n <= 2 * columns + 2 || columns < 1) {
+            return range(x, y, from, to);
+        }
+
+        boolean ascending = isAscending(x, from, to);
+        double x0 = x[from];
+        double span = x[to - 1] - x0;
+        double scale = ascending && span > 0 ? columns / span : 0.0;
+        boolean byX = scale > 0 && !Double.isInfinite(scale);
+
+        double[] outX = new double[2 * columns + 2];
+        double[] outY = new double[2 * columns + 2];
+        int size = 0;
+        outX[size] = x[from];
+        outY[size++] = y[from];
+
+        int column = -1;
+        int minIdx = -1;
+        int maxIdx = -1;
+        for (int i = from + 1; i < to - 1; i++) {
+            int c = byX
+                    ? (int) ((x[i] - x0) * scale)
+                    : (int) ((long) (i - from) * columns / n);
+            if (c >= columns) c = columns - 1;
+            if (c != column) {
+                size = flush(x, y, minIdx, maxIdx, outX, outY, size);
+                column = c;
+                minIdx = -1;
+                maxIdx = -1;
+            }
+            double v = y[i];
+            if (Double.isNaN(v)) {
+                continue;
+            }
+            if (minIdx < 0 || v < y[minIdx]) minIdx = i;
+            if (maxIdx < 0 || v > y[maxIdx]) maxIdx = i;
+        }
+        size = flush(x, y, minIdx, maxIdx, outX, outY, size);
+
+        outX[size] = x[to - 1];
+        outY[size++] = y[to - 1];
+        return new double[][]{Arrays.copyOf(outX, size), Arrays.copyOf(outY, size)};
+    }
+
+    /**
+     * minMax over points [from, to) of two off-heap columns. The columns
+     * are streamed in chunks through two small buffers; only the result,
+     * at most 2 * columns + 2 points, is a full heap copy.
+     */
+    static double[][] minMax(OffHeapColumn x, OffHeapColumn y, long from, long to, int columns) {
+        if (x.size() != y.size()) {
+            throw new IllegalArgumentException("x and y lengths differ: " + x.size() + " vs " + y.size());
+        }
+        long n = to - from;
+        if (n <= 2L * columns + 2 || columns < 1) {
+            if (n > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Too many points to copy undecimated: " + n);
+            }
+            return new double[][]{x.toArray(from, (int) n), y.toArray(from, (int) n)};
+        }
+
+        boolean ascending = isAscending(x, from, to);
+        double x0 = x.get(from);
+        double span = x.get(to - 1) - x0;
+        double scale = ascending && span > 0 ? columns / span : 0.0;
+        boolean byX = scale > 0 && !Double.isInfinite(scale);
+
+        double[] outX = new double[2 * columns + 2];
+        double[] outY = new double[2 * columns + 2];
+        int size = 0;
+        outX[size] = x0;
+        outY[size++] = y.get(from);
+
+        int chunk = OffHeapColumn.DEFAULT_CHUNK;
+        double[] xs = new double[chunk];
+        double[] ys = new double[chunk];
+        int column = -1;
+        // Index and point of the current column's min and max (index -1: none yet)
+        long minIdx = -1;
+        long maxIdx = -1;
+        double minX = 0.0;
+        double minY = 0.0;
+        double maxX = 0.0;
+        double maxY = 0.0;
+        for (long start = from + 1; start < to - 1; start += chunk) {
+            int length = (int) Math.min(chunk, to - 1 - start);
+            x.copyTo(start, xs, 0, length);
+            y.copyTo(start, ys, 0, length);
+            for (int j = 0; j < length; j++) {
+                long i = start + j;
+                int c = byX
+                        ? (int) ((xs[j] - x0) * scale)
+                        : (int) ((i - from) * columns / n);
+                if (c >= columns) c = columns - 1;
+                if (c != column) {
+                    size = flush(minIdx, minX, minY, maxIdx, maxX, maxY, outX, outY, size);
+                    column = c;
+                    minIdx = -1;
+                    maxIdx = -1;
+                }
+                double v = ys[j];
+                if (Double.isNaN(v)) {
+                    continue;
+                }
+                if (minIdx < 0 || v < minY) {
+                    minIdx = i;
+                    minX = xs[j];
+                    minY = v;
+                }
+                if (maxIdx < 0 || v > maxY) {
+                    maxIdx = i;
+                    maxX = xs[j];
+                    maxY = v;
+                }
+            }
+        }
+        size = flush(minIdx, minX, minY, maxIdx, maxX, maxY, outX, outY, size);
+
+        outX[size] = x.get(to - 1);
+        outY[size++] = y.get(to - 1);
+        return new double[][]{Arrays.copyOf(outX, size), Arrays.copyOf(outY, size)};
+    }
+
+    /** Point count, first and last x, and whether x is ascending, of a series seen piece by piece. */
+    static final class Span {
+        long count;
+        double firstX = Double.NaN;
+        double lastX = Double.NaN;
+        boolean ascending = true;
+
+        void add(double x) {
+            if (count == 0) {
+                firstX = x;
+            } else if (!(x >= lastX)) {
+                ascending = false;
+            }
+            lastX = x;
+            count++;
+        }
+
+        /** Extends this span by next, the span of the points that follow it. */
+        void append(Span next) {
+            if (next.count == 0) {
+                return;
+            }
+            if (count == 0) {
+                firstX = next.firstX;
+                ascending = next.ascending;
+            } else {
+                ascending &= next.ascending && next.firstX >= lastX;
+            }
+            lastX = next.lastX;
+            count += next.count;
+        }
+    }
+
+    /**
+     * minMax over a series that is too large to hold but can be read twice,
+     * such as a CSV file: a first pass collects its Span, then every point
+     * is passed to add() in order. The result is exactly minMax(x, y, 0, n,
+     * columns) of the same points; only the output is kept in memory.
+     */
+    static final class MinMaxStream {
+        private final long n;
+        private final int columns;
+        private final boolean keepAll;
+        private final boolean byX;
+        private final double x0;
+        private final double scale;
+        private final double[] outX;
+        private final double[] outY;
+        private int size;
+        private long index;
+
+        private int column = -1;
+        private long minIdx = -1;
+        private long maxIdx = -1;
+        private double minX;
+        private double minY;
+        private double maxX;
+        private double maxY;
+
+        MinMaxStream(Span span, int columns) {
+            this.n = span.count;
+            this.columns = columns;
+            this.keepAll = n <= 2L * columns + 2 || columns < 1;
+            if (keepAll && n > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Too many points to keep undecimated: " + n);
+            }
+            double span0 = span.lastX - span.firstX;
+            double s = span.ascending && span0 > 0 ? columns / span0 : 0.0;
+            this.byX = s > 0 && !Double.isInfinite(s);
+            this.scale = s;
+            this.x0 = span.firstX;
+            int capacity = keepAll ? (int) n : 2 * columns + 2;
+            this.outX = new double[capacity];
+            this.outY = new double[capacity];
+        }
+
+        void add(double x, double y) {
+            long i = index++;
+            if (i >= n) {
+                throw new IllegalStateException("More than the " + n + " points of the span");
+            }
+            if (keepAll || i == 0) {
+                outX[size] = x;
+                outY[size++] = y;
+                return;
+            }
+            if (i == n - 1) {
+                size = flush(minIdx, minX, minY, maxIdx, maxX, maxY, outX, outY, size);
+                outX[size] = x;
+                outY[size++] = y;
+                return;
+            }
+            int c = byX
+                    ? (int) ((x - x0) * scale)
+                    : (int) (i * columns / n);
+            if (c >= columns) c = columns - 1;
+            if (c != column) {
+                size = flush(minIdx, minX, minY, maxIdx, maxX, maxY, outX, outY, size);
+                column = c;
+                minIdx = -1;
+                maxIdx = -1;
+            }
+            if (Double.isNaN(y)) {
+                return;
+            }
+            if (minIdx < 0 || y < minY) {
+                minIdx = i;
+                minX = x;
+                minY = y;
+            }
+            if (maxIdx < 0 || y > maxY) {
+                maxIdx = i;
+                maxX = x;
+                maxY = y;
+            }
+        }
+
+        /** The decimated {x, y}; every point of the span must have been added. */
+        double[][] result() {
+            if (index != n) {
+                throw new IllegalStateException("Got " + index + " of the " + n + " points of the span");
+            }
+            return new double[][]{Arrays.copyOf(outX, size), Arrays.copyOf(outY, size)};
+        }
+    }
+
+    private static int flush(long minIdx, double minX, double minY,
+                             long maxIdx, double maxX, double maxY,
+                             double[] outX, double[] outY, int size) {
+        if (minIdx < 0) {
+            return size;
+        }
+        boolean minFirst = minIdx <= maxIdx;
+        outX[size] = minFirst ? minX : maxX;
+        outY[size++] = minFirst ? minY : maxY;
+        if (minIdx != maxIdx) {
+            outX[size] = minFirst ? maxX : minX;
+            outY[size++] = minFirst ? maxY : minY;
+        }
+        return size;
+    }
+
+    private static int flush(double[] x, double[] y, int minIdx, int maxIdx,
+                             double[] outX, double[] outY, int size) {
+        if (minIdx < 0) {
+            return size;
+        }
+        int first = Math.min(minIdx, maxIdx);
+        int second = Math.max(minIdx, maxIdx);
+        outX[size] = x[first];
+        outY[size++] = y[first];
+        if (second != first) {
+            outX[size] = x[second];
+            outY[size++] = y[second];
+        }
+        return size;
+    }
+
+    // ----- Helpers -----
+
+    private static boolean isAscending(double[] x, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            if (!(x[i] >= x[i - 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAscending(OffHeapColumn x, long from, long to) {
+        boolean[] ascending = {true};
+        double[] previous = {Double.NEGATIVE_INFINITY};
+        x.forEachChunk(from, to, OffHeapColumn.DEFAULT_CHUNK, (buffer, start, end) -> {
+            for (int i = start; i < end && ascending[0]; i++) {
+                ascending[0] = buffer[i] >= previous[0];
+                previous[0] = buffer[i];
+            }
+        });
+        return ascending[0];
+    }
+
+    private static double[][] range(double[] x, double[] y, int from, int to) {
+        if (from == 0 && to == x.length) {
+            return new double[][]{x, y};
+        }
+        return new double[][]{Arrays.copyOfRange(x, from, to), Arrays.copyOfRange(y, from, to)};
+    }
+}
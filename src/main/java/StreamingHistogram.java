@@ -0,0 +1,153 @@
+import java.util.Arrays;
+
+/**
+ * Incremental histogram for samples that arrive over time.
+ *
+ * Bins are fixed up front, mirroring the builders in Histograms
+ * (uniformBinHistogram / histogramWithBinWidth / histogramWithCustomEdges).
+ * Only the bin counts and a few running totals are kept, so memory stays
+ * constant no matter how many samples have been added.
+ *
+ * All methods are synchronized: producers can add from any thread while
+ * the UI takes snapshots for re-rendering.
+ */
+final class StreamingHistogram {
+
+    private final BinIndexer indexer;
+    private final double[] centers;
+    private final double[] widths;
+    private final double[] counts;
+
+    // Running totals over every sample seen (in range or not, NaN excluded)
+    private long seen;
+    private long nanCount;
+    private long outOfRange;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    private StreamingHistogram(BinIndexer indexer, double[] centers, double[] widths) {
+        this.indexer = indexer;
+        this.centers = centers;
+        this.widths = widths;
+        this.counts = new double[centers.length];
+    }
+
+    /** numBins equal bins over [min, max] (max goes into the last bin). */
+    static StreamingHistogram uniform(double min, double max, int numBins) {
+        double binWidth = (max - min) / numBins;
+        double[] centers = new double[numBins];
+        double[] widths = new double[numBins];
+        for (int i = 0; i < numBins; i++) {
+            double left = min + i * binWidth;
+            double right = left + binWidth;
+            centers[i] = (left + right) / 2.0;
+            widths[i] = binWidth;
+        }
+        return new StreamingHistogram(BinIndexer.forRange(min, max, numBins), centers, widths);
+    }
+
+    /** Bins of fixed width starting at min, extended to cover max. */
+    static StreamingHistogram withBinWidth(double min, double max, double binWidth) {
+        int numBins = (int) Math.ceil((max - min) / binWidth);
+        return uniform(min, min + numBins * binWidth, numBins);
+    }
+
+    /** Explicit bin edges (right edge of the last bin included). */
+    static StreamingHistogram withEdges(double[] edges) {
+        int numBins = edges.length - 1;
+        double[] centers = new double[numBins];
+        double[] widths = new double[numBins];
+        for (int i = 0; i < numBins; i++) {
+            widths[i] = edges[i + 1] - edges[i];
+            centers[i] = (edges[i + 1] + edges[i]) / 2.0;
+        }
+        return new StreamingHistogram(BinIndexer.forEdges(edges), centers, widths);
+    }
+
+    // ----- Input -----
+
+    synchronized void add(double v) {
+        accept(v);
+    }
+
+    synchronized void addAll(double[] values) {
+        addAll(values, 0, values.length);
+    }
+
+    synchronized void addAll(double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            accept(values[i]);
+        }
+    }
+
+    synchronized void reset() {
+        Arrays.fill(counts, 0.0);
+        seen = 0;
+        nanCount = 0;
+        outOfRange = 0;
+        mean = 0.0;
+        m2 = 0.0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    private void accept(double v) {
+        if (Double.isNaN(v)) {
+            nanCount++;
+            return;
+        }
+        int idx = indexer.indexOf(v);
+        if (idx >= 0) {
+            counts[idx] += 1.0;
+        } else {
+            outOfRange++;
+        }
+
+        // Welford update for mean / variance
+        seen++;
+        double d = v - mean;
+        mean += d / seen;
+        m2 += d * (v - mean);
+        if (v < min) min = v;
+        if (v > max) max = v;
+    }
+
+    // ----- Output -----
+
+    /** Copy of the current state; safe to hand to a chart while adding continues. */
+    synchronized Histograms.HistogramData snapshot() {
+        return new Histograms.HistogramData(centers.clone(), counts.clone(), widths.clone());
+    }
+
+    /** Non-NaN samples seen so far, including those outside the bins. */
+    synchronized long count() {
+        return seen;
+    }
+
+    synchronized long nanCount() {
+        return nanCount;
+    }
+
+    synchronized long outOfRangeCount() {
+        return outOfRange;
+    }
+
+    synchronized double mean() {
+        return seen > 0 ? mean : Double.NaN;
+    }
+
+    /** Sample standard deviation (n - 1 denominator), from the running Welford sums. */
+    synchronized double stdDev() {
+        return seen > 1 ? Math.sqrt(m2 / (seen - 1)) : Double.NaN;
+    }
+
+    synchronized double min() {
+        return seen > 0 ? min : Double.NaN;
+    }
+
+    synchronized double max() {
+        return seen > 0 ? max : Double.NaN;
+    }
+}
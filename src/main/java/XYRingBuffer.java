@@ -0,0 +1,91 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-capacity ring of (x, y) samples for live series, written by any
+ * number of producer threads without locks and read by one consumer
+ * (normally the EDT through LiveChart).
+ *
+ * A producer claims a sequence number with one atomic increment and fills
+ * that slot; once the ring is full the oldest samples are overwritten.
+ * Each slot carries the sequence it holds, set after the values are
+ * written, so the reader can skip a slot that is being written or was
+ * overwritten while it was copied. Values are stored as raw long bits in
+ * atomic arrays; add() allocates nothing.
+ */
+final class XYRingBuffer {
+
+    // Slot marker while a producer is writing it
+    private static final long WRITING = -1L;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray xBits;
+    private final AtomicLongArray yBits;
+    // sequence + 1 of the sample in each slot (0 = never written)
+    private final AtomicLongArray published;
+    private final AtomicLong next = new AtomicLong();
+
+    /** capacity is rounded up to a power of two. */
+    XYRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be in [1, 2^30], got " + capacity);
+        }
+        this.capacity = nextPowerOfTwo(capacity);
+        this.mask = this.capacity - 1;
+        this.xBits = new AtomicLongArray(this.capacity);
+        this.yBits = new AtomicLongArray(this.capacity);
+        this.published = new AtomicLongArray(this.capacity);
+    }
+
+    private static int nextPowerOfTwo(int n) {
+        int p = Integer.highestOneBit(n);
+        return p == n ? n : p << 1;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /** Total number of samples ever added (including overwritten ones). */
+    long added() {
+        return next.get();
+    }
+
+    /** Appends one sample; safe from any thread, never blocks. */
+    void add(double x, double y) {
+        long seq = next.getAndIncrement();
+        int slot = (int) (seq & mask);
+        published.lazySet(slot, WRITING);
+        xBits.lazySet(slot, Double.doubleToRawLongBits(x));
+        yBits.lazySet(slot, Double.doubleToRawLongBits(y));
+        published.lazySet(slot, seq + 1);
+    }
+
+    /**
+     * Copies the most recent samples, oldest first, into x and y (each at
+     * least capacity() long) and returns how many were copied. Slots still
+     * being written or overwritten during the copy are left out.
+     * Single reader only.
+     */
+    int snapshot(double[] x, double[] y) {
+        long end = next.get();
+        long start = Math.max(0, end - capacity);
+        int n = 0;
+        for (long seq = start; seq < end; seq++) {
+            int slot = (int) (seq & mask);
+            if (published.get(slot) != seq + 1) {
+                continue;
+            }
+            long xb = xBits.get(slot);
+            long yb = yBits.get(slot);
+            if (published.get(slot) != seq + 1) {
+                continue;
+            }
+            x[n] = Double.longBitsToDouble(xb);
+            y[n] = Double.longBitsToDouble(yb);
+            n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,80 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Standard normal sampler using the ziggurat method (Marsaglia and Tsang,
+ * with Doornik's 128-layer ZIGNOR variant, which takes the layer index and
+ * the uniform from independent bits).
+ *
+ * About 98.8% of samples cost one nextLong, one multiply and one compare;
+ * the rest fall back to the wedge test or the tail. No state besides the
+ * generator, so it is as thread-safe as the generator it is given.
+ */
+final class ZigguratNormal {
+
+    private static final int LAYERS = 128;
+
+    // Start of the tail and area of each layer, for 128 layers
+    private static final double R = 3.442619855899;
+    private static final double V = 9.91256303526217e-3;
+
+    // X[i]: right edge of layer i; RATIO[i] = X[i + 1] / X[i]
+    private static final double[] X = new double[LAYERS + 1];
+    private static final double[] RATIO = new double[LAYERS];
+
+    private static final double TWO_POW_53 = 0x1.0p53;
+
+    static {
+        double f = Math.exp(-0.5 * R * R);
+        X[0] = V / f;
+        X[1] = R;
+        X[LAYERS] = 0.0;
+        for (int i = 2; i < LAYERS; i++) {
+            X[i] = Math.sqrt(-2.0 * Math.log(V / X[i - 1] + f));
+            f = Math.exp(-0.5 * X[i] * X[i]);
+        }
+        for (int i = 0; i < LAYERS; i++) {
+            RATIO[i] = X[i + 1] / X[i];
+        }
+    }
+
+    private ZigguratNormal() {
+    }
+
+    /** One N(0, 1) sample. */
+    static double next(RandomGenerator rng) {
+        while (true) {
+            long bits = rng.nextLong();
+            int layer = (int) (bits & (LAYERS - 1));
+            // Top 53 bits -> u uniform in [-1, 1)
+            double u = 2.0 * ((bits >>> 11) / TWO_POW_53) - 1.0;
+            if (Math.abs(u) < RATIO[layer]) {
+                return u * X[layer];
+            }
+            if (layer == 0) {
+                return tail(rng, u < 0);
+            }
+            double x = u * X[layer];
+            double f0 = Math.exp(-0.5 * (X[layer] * X[layer] - x * x));
+            double f1 = Math.exp(-0.5 * (X[layer + 1] * X[layer + 1] - x * x));
+            if (f1 + rng.nextDouble() * (f0 - f1) < 1.0) {
+                return x;
+            }
+        }
+    }
+
+    // Marsaglia's tail method for |x| > R
+    private static double tail(RandomGenerator rng, boolean negative) {
+        double x;
+        double y;
+        do {
+            x = Math.log(openUnit(rng)) / R;
+            y = Math.log(openUnit(rng));
+        } while (-2.0 * y < x * x);
+        return negative ? x - R : R - x;
+    }
+
+    // Uniform in (0, 1], so the logs above are finite
+    private static double openUnit(RandomGenerator rng) {
+        return ((rng.nextLong() >>> 11) + 1) / TWO_POW_53;
+    }
+}
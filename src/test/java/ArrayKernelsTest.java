@@ -0,0 +1,75 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class ArrayKernelsTest {
+
+    private final Random rnd = new Random(18);
+
+    private double[] input(int n) {
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = (rnd.nextDouble() - 0.5) * 20.0;
+        }
+        if (n > 3) {
+            x[0] = Double.NaN;
+            x[1] = -0.0;
+            x[2] = Double.POSITIVE_INFINITY;
+        }
+        return x;
+    }
+
+    // Sizes around the block size and the parallel threshold, and an empty array
+    private static final int[] SIZES = {0, 1, 2047, 2049, ArrayKernels.PARALLEL_THRESHOLD - 1,
+            ArrayKernels.PARALLEL_THRESHOLD + 1, 1_000_003};
+
+    @Test
+    void kernelsMatchScalarExpressions() {
+        for (int n : SIZES) {
+            double[] x = input(n);
+            double[] sin = new double[n];
+            double[] shiftedCos = new double[n];
+            double[] affineTan = new double[n];
+            double[] diff = new double[n];
+            double[] negScaled = new double[n];
+            for (int i = 0; i < n; i++) {
+                sin[i] = Math.sin(x[i]);
+                shiftedCos[i] = Math.cos(x[i] + 0.5);
+                affineTan[i] = 2.0 * Math.tan(x[i]) - 1.0;
+                diff[i] = Math.sin(x[i]) - Math.cos(x[i]);
+                negScaled[i] = -(x[i] * 3.0);
+            }
+            assertArrayEquals(sin, ArrayKernels.map(x, ArrayKernels.SIN));
+            assertArrayEquals(shiftedCos, ArrayKernels.map(x,
+                    ArrayKernels.compose(ArrayKernels.shift(0.5), ArrayKernels.COS)));
+            assertArrayEquals(affineTan, ArrayKernels.map(x,
+                    ArrayKernels.compose(ArrayKernels.TAN, ArrayKernels.affine(2.0, -1.0))));
+            assertArrayEquals(diff, ArrayKernels.map(x,
+                    ArrayKernels.subtract(ArrayKernels.SIN, ArrayKernels.COS)));
+            assertArrayEquals(negScaled, ArrayKernels.map(x,
+                    ArrayKernels.of(v -> -(v * 3.0))));
+
+            double[] inPlace = x.clone();
+            ArrayKernels.mapInPlace(inPlace, ArrayKernels.subtract(ArrayKernels.SIN, ArrayKernels.COS));
+            assertArrayEquals(diff, inPlace);
+        }
+    }
+
+    @Test
+    void linspaceMatchesScalarLoop() {
+        for (int n : new int[]{0, 1, 2, 200, ArrayKernels.PARALLEL_THRESHOLD + 7}) {
+            double[] expected = new double[n];
+            if (n == 1) {
+                expected[0] = -1.5;
+            } else {
+                double step = (2.5 - -1.5) / (n - 1);
+                for (int i = 0; i < n; i++) {
+                    expected[i] = -1.5 + step * i;
+                }
+            }
+            assertArrayEquals(expected, ArrayKernels.linspace(-1.5, 2.5, n));
+        }
+    }
+}
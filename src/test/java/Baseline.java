@@ -0,0 +1,109 @@
+import java.util.Random;
+
+/**
+ * The plain loops from the original Histograms builders, kept verbatim as
+ * the reference the fast paths are checked against, plus shared inputs.
+ */
+final class Baseline {
+
+    private Baseline() {
+    }
+
+    /** histogramWithCustomEdges: range check, then first-match scan. */
+    static int edgeBin(double[] edges, double v) {
+        int numBins = edges.length - 1;
+        if (Double.isNaN(v)) return -1;
+        if (v < edges[0] || v > edges[edges.length - 1]) {
+            return -1;
+        }
+        for (int i = 0; i < numBins; i++) {
+            double left = edges[i];
+            double right = edges[i + 1];
+            boolean inBin = (v >= left && (v < right || (i == numBins - 1 && v <= right)));
+            if (inBin) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** uniformBinHistogramInRange: (v - min) / binWidth, max counted in the last bin. */
+    static int rangeBin(double min, double max, int numBins, double v) {
+        double binWidth = (max - min) / numBins;
+        if (Double.isNaN(v)) return -1;
+        int idx = (int) ((v - min) / binWidth);
+        if (idx < 0 || idx >= numBins) {
+            // include max in last bin
+            if (v == max) {
+                idx = numBins - 1;
+            } else {
+                return -1;
+            }
+        }
+        return idx;
+    }
+
+    static double[] countEdges(double[] data, double[] edges) {
+        double[] counts = new double[edges.length - 1];
+        for (double v : data) {
+            int idx = edgeBin(edges, v);
+            if (idx >= 0) {
+                counts[idx] += 1.0;
+            }
+        }
+        return counts;
+    }
+
+    static double[] countRange(double[] data, double min, double max, int numBins) {
+        double[] counts = new double[numBins];
+        for (double v : data) {
+            int idx = rangeBin(min, max, numBins, v);
+            if (idx >= 0) {
+                counts[idx] += 1.0;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Normal samples over roughly [-4, 4], followed by every edge, the
+     * doubles just either side of each edge, NaN and both infinities.
+     */
+    static double[] samples(Random rnd, int n, double[] edges) {
+        double[] special = {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -0.0, 0.0};
+        double[] data = new double[n + 3 * edges.length + special.length];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            data[k++] = rnd.nextGaussian() * 1.5;
+        }
+        for (double e : edges) {
+            data[k++] = e;
+            data[k++] = Math.nextDown(e);
+            data[k++] = Math.nextUp(e);
+        }
+        for (double s : special) {
+            data[k++] = s;
+        }
+        return data;
+    }
+
+    static double[] uniformEdges(double min, double max, int bins) {
+        double[] edges = new double[bins + 1];
+        double width = (max - min) / bins;
+        for (int i = 0; i <= bins; i++) {
+            edges[i] = min + i * width;
+        }
+        return edges;
+    }
+
+    /** bins + 1 sorted, unevenly spaced edges over about [-4, 4]. */
+    static double[] unevenEdges(Random rnd, int bins) {
+        double[] edges = new double[bins + 1];
+        double x = -4.0;
+        for (int i = 0; i <= bins; i++) {
+            edges[i] = x;
+            x += (0.1 + rnd.nextDouble()) * 8.0 / bins;
+        }
+        return edges;
+    }
+}
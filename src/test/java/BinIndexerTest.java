@@ -0,0 +1,117 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BinIndexerTest {
+
+    private final Random rnd = new Random(42);
+
+    private void assertSameAsLinearScan(double[] edges) {
+        BinIndexer indexer = BinIndexer.forEdges(edges);
+        assertEquals(edges.length - 1, indexer.numBins());
+        for (double v : Baseline.samples(rnd, 20_000, edges)) {
+            assertEquals(Baseline.edgeBin(edges, v), indexer.indexOf(v), () -> "v = " + v);
+        }
+    }
+
+    @Test
+    void uniformEdgesMatchLinearScan() {
+        assertSameAsLinearScan(Baseline.uniformEdges(-3.0, 3.0, 7));
+        assertSameAsLinearScan(Baseline.uniformEdges(-3.7, 2.9, 1000));
+        // Integer edges, as the "integers" rule builds them
+        assertSameAsLinearScan(Baseline.uniformEdges(-5.0, 5.0, 10));
+        // 0.1 steps are not exact in binary, so the arithmetic guess needs correcting
+        double[] tenths = new double[61];
+        for (int i = 0; i < tenths.length; i++) {
+            tenths[i] = -3.0 + i * 0.1;
+        }
+        assertSameAsLinearScan(tenths);
+    }
+
+    @Test
+    void unevenEdgesMatchLinearScan() {
+        // Below and above the lookup-table threshold
+        assertSameAsLinearScan(Baseline.unevenEdges(rnd, 5));
+        assertSameAsLinearScan(Baseline.unevenEdges(rnd, 31));
+        assertSameAsLinearScan(Baseline.unevenEdges(rnd, 32));
+        assertSameAsLinearScan(Baseline.unevenEdges(rnd, 5000));
+    }
+
+    @Test
+    void repeatedAndSingleBinEdgesMatchLinearScan() {
+        assertSameAsLinearScan(new double[]{-1.0, 0.0, 0.0, 1.0, 2.0});
+        assertSameAsLinearScan(new double[]{-1.0, -1.0, 0.5, 0.5, 0.5, 3.0});
+        assertSameAsLinearScan(new double[]{0.0, 1.0});
+        assertSameAsLinearScan(new double[]{1.0, 1.0});
+        double[] dense = Baseline.unevenEdges(rnd, 100);
+        dense[50] = dense[49];
+        dense[51] = dense[49];
+        assertSameAsLinearScan(dense);
+    }
+
+    @Test
+    void infiniteEndEdgesMatchLinearScan() {
+        double inf = Double.POSITIVE_INFINITY;
+        double[] wide = Baseline.unevenEdges(rnd, 40);
+        wide[0] = -inf;
+        wide[wide.length - 1] = inf;
+        double[][] cases = {{-inf, 0.0, inf}, {0.0, inf}, {-inf, -1.0, 0.0, 1.0}, {-1.0, 0.0, 1.0, inf}, wide};
+        for (double[] edges : cases) {
+            // Infinite width would pass the spacing check, and the arithmetic guess would be useless
+            assertEquals("SEARCH", BinIndexer.forEdges(edges).strategy(), () -> Arrays.toString(edges));
+            assertSameAsLinearScan(edges);
+        }
+        assertEquals("UNIFORM", BinIndexer.forEdges(Baseline.uniformEdges(-3.0, 3.0, 7)).strategy());
+    }
+
+    @Test
+    void unsortedEdgesKeepFirstMatchRule() {
+        assertSameAsLinearScan(new double[]{0.0, 2.0, 1.0, 3.0});
+        assertSameAsLinearScan(new double[]{3.0, 2.0, 1.0, 0.0});
+        assertSameAsLinearScan(new double[]{-1.0, 1.0, -2.0, 2.0, 0.0, 4.0});
+        assertSameAsLinearScan(new double[]{0.0, Double.NaN, 1.0});
+        double[] shuffled = Baseline.unevenEdges(rnd, 50);
+        for (int i = shuffled.length - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            double t = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = t;
+        }
+        assertSameAsLinearScan(shuffled);
+    }
+
+    @Test
+    void rangeMatchesUniformBuilderArithmetic() {
+        double[][] ranges = {{-3.0, 3.0}, {-2.1, 4.7}, {0.0, 1e-9}, {1e6, 1e6 + 1}};
+        for (double[] r : ranges) {
+            for (int bins : new int[]{1, 3, 10, 97, 1000}) {
+                BinIndexer indexer = BinIndexer.forRange(r[0], r[1], bins);
+                double[] probes = Baseline.samples(rnd, 5_000, Baseline.uniformEdges(r[0], r[1], bins));
+                for (double v : probes) {
+                    assertEquals(Baseline.rangeBin(r[0], r[1], bins, v), indexer.indexOf(v),
+                            () -> "v = " + v);
+                }
+            }
+        }
+    }
+
+    @Test
+    void countIntoMatchesBaselineOnEmptyAndPartialRanges() {
+        double[] edges = Baseline.unevenEdges(rnd, 40);
+        BinIndexer indexer = BinIndexer.forEdges(edges);
+
+        double[] counts = new double[40];
+        indexer.countInto(new double[0], 0, 0, counts);
+        assertArrayEquals(new double[40], counts);
+
+        double[] data = Baseline.samples(rnd, 10_000, edges);
+        counts = new double[40];
+        indexer.countInto(data, 100, 9_000, counts);
+        double[] slice = Arrays.copyOfRange(data, 100, 9_000);
+        assertArrayEquals(Baseline.countEdges(slice, edges), counts);
+    }
+}
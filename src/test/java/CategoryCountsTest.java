@@ -0,0 +1,107 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CategoryCountsTest {
+
+    private final Random rnd = new Random(22);
+
+    /** Skewed categories with some nulls; cardinality large enough to grow every table. */
+    private String[] values(int n, int cardinality) {
+        String[] values = new String[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = rnd.nextInt(50) == 0
+                    ? null
+                    : "c" + (int) (cardinality * Math.pow(rnd.nextDouble(), 3));
+        }
+        return values;
+    }
+
+    private static void assertSameAsMapCount(String[] values) {
+        // Reference: the original LinkedHashMap count, which keeps first-appearance order
+        Map<String, Long> expected = new LinkedHashMap<>();
+        long nulls = 0;
+        for (String v : values) {
+            if (v == null) {
+                nulls++;
+            } else {
+                expected.merge(v, 1L, Long::sum);
+            }
+        }
+
+        CategoryCounts c = CategoryCounts.encode(values);
+        assertArrayEquals(expected.keySet().toArray(new String[0]), c.categories);
+        long[] counts = expected.values().stream().mapToLong(Long::longValue).toArray();
+        assertArrayEquals(counts, c.counts);
+        assertEquals(nulls, c.missing);
+        assertEquals(values.length - nulls, c.total);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                assertEquals(-1, c.codes[i]);
+            } else {
+                assertEquals(values[i], c.categories[c.codes[i]]);
+            }
+        }
+        assertEquals(-1, c.codeOf("not there"));
+        assertEquals(-1, c.codeOf(null));
+    }
+
+    @Test
+    void serialEncodingMatchesMapCount() {
+        assertSameAsMapCount(new String[0]);
+        assertSameAsMapCount(new String[]{null, null});
+        assertSameAsMapCount(new String[]{"a", "", "a", null, "b", ""});
+        assertSameAsMapCount(values(10_000, 3_000));
+    }
+
+    @Test
+    void parallelEncodingMatchesMapCount() {
+        assertSameAsMapCount(values(CategoryCounts.PARALLEL_THRESHOLD, 20));
+        assertSameAsMapCount(values(1_000_000, 200_000));
+        // Strings with equal hash codes share probe chains
+        String[] collisions = new String[400_000];
+        for (int i = 0; i < collisions.length; i++) {
+            collisions[i] = rnd.nextBoolean() ? "Aa" : "BB";
+        }
+        assertSameAsMapCount(collisions);
+    }
+
+    @Test
+    void topKMatchesSortedCounts() {
+        String[] values = values(300_000, 500);
+        CategoryCounts c = CategoryCounts.encode(values);
+        for (int k : new int[]{1, 10, c.size(), c.size() + 5}) {
+            // Reference: stable sort by descending count keeps first appearance on ties
+            List<Integer> codes = new ArrayList<>();
+            for (int code = 0; code < c.size(); code++) {
+                codes.add(code);
+            }
+            codes.sort((a, b) -> Long.compare(c.counts[b], c.counts[a]));
+            int kept = Math.min(k, c.size());
+
+            CategoryCounts.Top top = c.top(k, "other");
+            long keptTotal = 0;
+            for (int i = 0; i < kept; i++) {
+                assertEquals(c.categories[codes.get(i)], top.categories.get(i));
+                assertEquals(c.counts[codes.get(i)], top.counts[i]);
+                keptTotal += top.counts[i];
+            }
+            if (kept < c.size()) {
+                assertEquals(kept + 1, top.categories.size());
+                assertEquals("other", top.categories.get(kept));
+                assertEquals(c.total - keptTotal, top.counts[kept]);
+            } else {
+                assertEquals(kept, top.categories.size());
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> c.top(0, "other"));
+    }
+}
@@ -0,0 +1,29 @@
+import org.junit.jupiter.api.Test;
+import org.knowm.xchart.XYChart;
+import org.knowm.xchart.XYChartBuilder;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ChartImageCacheTest {
+
+    @Test
+    void renderingAtAnotherSizeLeavesTheChartSizeAlone() {
+        XYChart chart = new XYChartBuilder().width(400).height(300).build();
+        chart.addSeries("s", new double[]{1, 2, 3}, new double[]{3, 1, 2});
+        ChartImageCache cache = new ChartImageCache(64L << 20);
+
+        BufferedImage small = cache.render(chart, 123, 77);
+        assertEquals(123, small.getWidth());
+        assertEquals(77, small.getHeight());
+        assertEquals(400, chart.getWidth());
+        assertEquals(300, chart.getHeight());
+
+        BufferedImage own = cache.render(chart, chart.getWidth(), chart.getHeight());
+        assertEquals(400, own.getWidth());
+        assertEquals(300, own.getHeight());
+        assertSame(small, cache.render(chart, 123, 77));
+    }
+}
@@ -0,0 +1,103 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knowm.xchart.internal.chartpart.Chart;
+
+import javax.imageio.ImageIO;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChartServerTest {
+
+    private static final String CHART = "line-1-multiple-lines";
+
+    private ChartServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void start() throws IOException {
+        server = ChartServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2);
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    private BufferedImage get(String pathAndQuery) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(pathAndQuery)).build());
+    }
+
+    private BufferedImage post(String pathAndQuery, String body) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(pathAndQuery)).POST(HttpRequest.BodyPublishers.ofString(body)).build());
+    }
+
+    private URI uri(String pathAndQuery) {
+        return URI.create("http://127.0.0.1:" + server.address().getPort() + pathAndQuery);
+    }
+
+    private BufferedImage send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode(), new String(response.body()));
+        return ImageIO.read(new ByteArrayInputStream(response.body()));
+    }
+
+    @Test
+    void customSizeDoesNotChangeTheDefault() throws IOException, InterruptedException {
+        Chart<?, ?> fresh = null;
+        for (BatchRenderer.Job job : LinePlots.batchJobs()) {
+            if (job.name.equals(CHART)) {
+                fresh = job.factory.get().get(0);
+            }
+        }
+        int width = fresh.getWidth();
+        int height = fresh.getHeight();
+
+        BufferedImage custom = get("/charts/" + CHART + ".png?width=320&height=200");
+        assertEquals(320, custom.getWidth());
+        assertEquals(200, custom.getHeight());
+
+        BufferedImage defaults = get("/charts/" + CHART + ".png");
+        assertEquals(width, defaults.getWidth());
+        assertEquals(height, defaults.getHeight());
+    }
+
+    @Test
+    void postedTitlesShareOneMetricsName() throws Exception {
+        post("/render/histogram.png?title=first-posted-title", "1 2 2 3 3 3");
+        post("/render/histogram.png?title=second-posted-title", "4 5 5 6");
+
+        MBeanServer mbeans = ManagementFactory.getPlatformMBeanServer();
+        assertTrue(mbeans.isRegistered(chartMBean("posted-histogram")));
+        assertFalse(mbeans.isRegistered(chartMBean("first-posted-title")));
+        assertFalse(mbeans.isRegistered(chartMBean("second-posted-title")));
+    }
+
+    @Test
+    void postedChartsBypassTheImageCache() throws IOException, InterruptedException {
+        long misses = ChartImageCache.SHARED.misses();
+        long bytes = ChartImageCache.SHARED.bytes();
+        BufferedImage image = post("/render/line.png?width=300&height=150", "0,1\n1,3\n2,2");
+        assertEquals(300, image.getWidth());
+        assertEquals(misses, ChartImageCache.SHARED.misses());
+        assertEquals(bytes, ChartImageCache.SHARED.bytes());
+    }
+
+    private static ObjectName chartMBean(String name) throws Exception {
+        return new ObjectName("plotting:type=Chart,name=" + ObjectName.quote(name));
+    }
+}
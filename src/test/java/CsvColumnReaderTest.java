@@ -0,0 +1,242 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.knowm.xchart.XYChart;
+import org.knowm.xchart.XYChartBuilder;
+import org.knowm.xchart.XYSeries;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvColumnReaderTest {
+
+    @TempDir
+    Path dir;
+
+    private static final long TEN_TO_19 = Long.parseUnsignedLong("10000000000000000000");
+
+    private final Random rnd = new Random(8);
+
+    private Path write(String name, String content) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /** Every row of the reader, one double[] per selected column in slot order. */
+    private static List<double[]> readAll(CsvColumnReader csv) throws IOException {
+        List<double[]> rows = new ArrayList<>();
+        csv.forEachChunk((cols, n) -> {
+            for (int i = 0; i < n; i++) {
+                double[] row = new double[cols.length];
+                for (int c = 0; c < cols.length; c++) {
+                    row[c] = cols[c][i];
+                }
+                rows.add(row);
+            }
+        });
+        return rows;
+    }
+
+    @Test
+    void histogramsAddressFileColumnsNotSlots() throws IOException {
+        // Column 1 holds 0..9, column 3 holds 100..109; the reader selects them as slots 1 and 0
+        StringBuilder sb = new StringBuilder("a,b,c,d\n");
+        for (int i = 0; i < 10; i++) {
+            sb.append("x,").append(i).append(",y,").append(100 + i).append('\n');
+        }
+        CsvColumnReader csv = CsvColumnReader.csv(write("cols.csv", sb.toString()), true, 3, 1);
+        assertEquals(0, csv.slotOf(3));
+        assertEquals(1, csv.slotOf(1));
+
+        Histograms.HistogramData h = Histograms.uniformBinHistogram(csv.column(1), 10);
+        assertEquals(0.45, h.binCenters[0], 1e-12);
+        assertEquals(10.0, h.totalCount);
+        h = Histograms.histogramWithCustomEdges(csv.column(3), new double[]{100, 105, 110});
+        assertArrayEquals(new double[]{5, 5}, h.binCounts);
+
+        assertThrows(IllegalArgumentException.class, () -> csv.column(0));
+        assertThrows(IllegalArgumentException.class, () -> csv.column(2));
+        assertThrows(IllegalArgumentException.class, () -> csv.slotOf(7));
+        assertThrows(IllegalArgumentException.class, () -> csv.slotOf(-1));
+        assertThrows(IllegalArgumentException.class, () -> CsvColumnReader.csv(dir, false, 1, 1));
+    }
+
+    @Test
+    void parallelSegmentsSeeEveryRowOnce() throws IOException {
+        StringBuilder sb = new StringBuilder("v\n");
+        double sum = 0.0;
+        for (int i = 0; i < 200_000; i++) {
+            int v = rnd.nextInt(1000);
+            sum += v;
+            sb.append(v).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        CsvColumnReader csv = CsvColumnReader.csv(write("rows.csv", sb.toString()), true, 0);
+        List<double[]> partial = csv.forEachChunkParallel(7, () -> new double[2], (acc, cols, rows) -> {
+            for (int i = 0; i < rows; i++) {
+                acc[0] += cols[0][i];
+                acc[1]++;
+            }
+        });
+        double total = 0.0;
+        double rows = 0.0;
+        for (double[] p : partial) {
+            total += p[0];
+            rows += p[1];
+        }
+        assertEquals(200_000, rows);
+        assertEquals(sum, total);
+        assertEquals(200_000, readAll(csv).size());
+    }
+
+    @Test
+    void csvSeriesIsDecimatedLikeTheLoadedColumns() throws IOException {
+        // Rows with a missing or unparsable cell are dropped before decimating
+        int n = 120_000;
+        StringBuilder sb = new StringBuilder("t,skip,v\n");
+        double[] x = new double[n];
+        double[] y = new double[n];
+        int kept = 0;
+        for (int i = 0; i < n; i++) {
+            double v = Math.sin(i * 0.001) + rnd.nextGaussian() * 0.1;
+            if (i % 1000 == 7) {
+                sb.append(i).append(",0,\n");
+            } else if (i % 1000 == 8) {
+                sb.append("n/a,0,").append(v).append('\n');
+            } else {
+                sb.append(i).append(",0,").append(v).append('\n');
+                x[kept] = i;
+                y[kept++] = v;
+            }
+        }
+        CsvColumnReader csv = CsvColumnReader.csv(write("series.csv", sb.toString()), true, 0, 2);
+        XYChart chart = new XYChartBuilder().width(800).height(600).build();
+        XYSeries series = LinePlots.addCsvSeries(chart, "v", csv, 0, 2);
+
+        double[][] expected = SeriesDecimator.minMax(Arrays.copyOf(x, kept),
+                Arrays.copyOf(y, kept), 0, kept, LinePlots.plotPixelWidth(chart));
+        assertArrayEquals(expected[0], series.getXData());
+        assertArrayEquals(expected[1], series.getYData());
+    }
+
+    /** A decimal string with 1 to 25 random digits, a random point and maybe an exponent. */
+    private String randomDecimal() {
+        StringBuilder sb = new StringBuilder(rnd.nextBoolean() ? "-" : "");
+        int digits = 1 + rnd.nextInt(25);
+        int point = rnd.nextInt(digits + 1);
+        for (int i = 0; i < digits; i++) {
+            if (i == point && i > 0) {
+                sb.append('.');
+            }
+            sb.append((char) ('0' + rnd.nextInt(10)));
+        }
+        if (rnd.nextBoolean()) {
+            sb.append(rnd.nextBoolean() ? 'e' : 'E').append(rnd.nextInt(700) - 350);
+        }
+        return sb.toString();
+    }
+
+    /** Parses one column of values through the reader, in order. */
+    private double[] parseColumn(String name, List<String> cells) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (String cell : cells) {
+            sb.append(cell).append('\n');
+        }
+        List<double[]> rows = readAll(CsvColumnReader.csv(write(name, sb.toString()), false, 0));
+        double[] values = new double[rows.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rows.get(i)[0];
+        }
+        return values;
+    }
+
+    @Test
+    void decimalParserMatchesParseDoubleOrDeclines() {
+        int declined = 0;
+        for (int t = 0; t < 200_000; t++) {
+            // Up to 19 digits, the longest mantissa the parser is given
+            long mantissa = rnd.nextInt(4) == 0
+                    ? rnd.nextLong() >>> rnd.nextInt(64)
+                    : Long.remainderUnsigned(rnd.nextLong(), TEN_TO_19);
+            int exp10 = rnd.nextInt(720) - 360;
+            boolean negative = rnd.nextBoolean();
+            double expected = Double.parseDouble((negative ? "-" : "") + Long.toUnsignedString(mantissa) + "E" + exp10);
+            double actual = DecimalParser.toDouble(mantissa, exp10, negative);
+            if (Double.isNaN(actual)) {
+                declined++;
+            } else {
+                assertEquals(expected, actual, mantissa + "E" + exp10);
+            }
+        }
+        // Only subnormals, out-of-range exponents and rare halfway cases fall back
+        assertTrue(declined < 200_000 / 5, "declined " + declined);
+    }
+
+    @Test
+    void parsedCellsMatchParseDouble() throws IOException {
+        List<String> cells = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            cells.add(Double.toString(Double.longBitsToDouble(rnd.nextLong())));
+            cells.add(Double.toString(rnd.nextDouble() * Math.pow(10, rnd.nextInt(40) - 20)));
+            cells.add(randomDecimal());
+        }
+        cells.addAll(Arrays.asList(
+                "4.9E-324", "2.4703282292062327e-324", "2.4703282292062328e-324",
+                "2.2250738585072011E-308", "2.2250738585072012e-308", "1e-400", "1e400",
+                "-0", "-0.0", "+0", "0e999", "12345678901234567890123", "9007199254740993",
+                "9007199254740993.0000000000000000001", "1.00000000000000011102230246251565404236316680908203125",
+                "1.7976931348623157e308", "1.7976931348623158e308", "1.7976931348623159e308",
+                "123456789012345678e-360", "0.000000000000000000000000000001", " 7.5 ", "1.", ".5"));
+        double[] values = parseColumn("numbers.csv", cells);
+        assertEquals(cells.size(), values.length);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(Double.parseDouble(cells.get(i)), values[i], cells.get(i));
+        }
+    }
+
+    @Test
+    void specialSpellingsAndJunk() throws IOException {
+        List<String> cells = Arrays.asList("Infinity", "-Infinity", "+Infinity", "inf", "-INF", "+inf",
+                "infinity", "NaN", "nan", "-nan", "", "abc", "1e", "--1", "1.2.3", "\"\"", "\"-2.5\"");
+        double[] expected = {
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.NaN, Double.NaN, Double.NaN, Double.NaN,
+                Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, -2.5};
+        // The empty cell is a blank line and produces no row
+        double[] values = parseColumn("special.csv", cells);
+        double[] withoutBlank = new double[expected.length - 1];
+        for (int i = 0, j = 0; i < expected.length; i++) {
+            if (!cells.get(i).isEmpty()) {
+                withoutBlank[j++] = expected[i];
+            }
+        }
+        assertArrayEquals(withoutBlank, values);
+    }
+
+    @Test
+    void quotedFieldsKeepTheirDelimiters() throws IOException {
+        String content = "a,b,c\n"
+                + "\"1,5\",2,3\n"
+                + "\"4\",\"5\",6\n"
+                + "\"say \"\"7,8\"\"\",9,10\n"
+                + "11,12,\"13\n";
+        List<double[]> rows = readAll(CsvColumnReader.csv(write("quoted.csv", content), true, 0, 1, 2));
+        assertEquals(4, rows.size());
+        assertArrayEquals(new double[]{Double.NaN, 2, 3}, rows.get(0));
+        assertArrayEquals(new double[]{4, 5, 6}, rows.get(1));
+        assertArrayEquals(new double[]{Double.NaN, 9, 10}, rows.get(2));
+        // An unterminated quote runs to the end of the line and leaves that cell unparsable
+        assertArrayEquals(new double[]{11, 12, Double.NaN}, rows.get(3));
+    }
+}
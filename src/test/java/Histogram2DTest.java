@@ -0,0 +1,64 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Histogram2DTest {
+
+    private final Random rnd = new Random(20);
+
+    private static double[] countPairs(double[] x, double[] y, double[] xEdges, double[] yEdges) {
+        int xBins = xEdges.length - 1;
+        double[] counts = new double[xBins * (yEdges.length - 1)];
+        for (int i = 0; i < x.length; i++) {
+            int bx = Baseline.edgeBin(xEdges, x[i]);
+            int by = Baseline.edgeBin(yEdges, y[i]);
+            if (bx >= 0 && by >= 0) {
+                counts[by * xBins + bx] += 1.0;
+            }
+        }
+        return counts;
+    }
+
+    @Test
+    void edgeGridMatchesPairLoop() {
+        double[] xEdges = Baseline.unevenEdges(rnd, 40);
+        double[] yEdges = Baseline.uniformEdges(-3.0, 3.0, 25);
+        // Large enough to be counted in parallel chunks
+        double[] x = Baseline.samples(rnd, 600_000, xEdges);
+        double[] y = Baseline.samples(rnd, x.length - 3 * yEdges.length - 5, yEdges);
+        Histogram2D h = Histogram2D.withEdges(x, y, xEdges, yEdges);
+        assertArrayEquals(countPairs(x, y, xEdges, yEdges), h.counts);
+    }
+
+    @Test
+    void uniformGridMatchesRangeRule() {
+        double[] x = Baseline.samples(rnd, 50_000, Baseline.uniformEdges(-2.0, 2.0, 16));
+        double[] y = new double[x.length];
+        for (int i = 0; i < y.length; i++) {
+            y[i] = x[(i * 7) % x.length];
+        }
+        Histogram2D h = Histogram2D.uniform(x, y, -2.0, 2.0, 16, -1.0, 3.0, 8);
+        double[] expected = new double[16 * 8];
+        for (int i = 0; i < x.length; i++) {
+            int bx = Baseline.rangeBin(-2.0, 2.0, 16, x[i]);
+            int by = Baseline.rangeBin(-1.0, 3.0, 8, y[i]);
+            if (bx >= 0 && by >= 0) {
+                expected[by * 16 + bx] += 1.0;
+            }
+        }
+        assertArrayEquals(expected, h.counts);
+    }
+
+    @Test
+    void emptyInputAndBadArguments() {
+        Histogram2D h = Histogram2D.uniform(new double[0], new double[0], 0, 1, 3, 0, 1, 2);
+        assertArrayEquals(new double[6], h.counts);
+        assertThrows(IllegalArgumentException.class,
+                () -> Histogram2D.uniform(new double[2], new double[3], 0, 1, 3, 0, 1, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> Histogram2D.withEdges(new double[1], new double[1], new double[]{0.0}, new double[]{0, 1}));
+    }
+}
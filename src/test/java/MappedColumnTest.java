@@ -0,0 +1,91 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MappedColumnTest {
+
+    @TempDir
+    Path dir;
+
+    private final Random rnd = new Random(7);
+
+    // 64-byte segments: 8 doubles or 16 floats each
+    private static final int SEGMENT_BYTES_SHIFT = 6;
+
+    private double[] values(int n) {
+        double[] v = new double[n];
+        for (int i = 0; i < n; i++) {
+            v[i] = rnd.nextGaussian();
+        }
+        return v;
+    }
+
+    @Test
+    void doublesRoundTripAcrossSegments() throws IOException {
+        double[] values = values(101);
+        ByteBuffer bytes = ByteBuffer.allocate(values.length * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (double v : values) {
+            bytes.putDouble(v);
+        }
+        Path file = Files.write(dir.resolve("values.f64"), bytes.array());
+
+        MappedColumn column = MappedColumn.open(file, MappedColumn.Type.FLOAT64, SEGMENT_BYTES_SHIFT);
+        assertRoundTrip(values, column);
+    }
+
+    @Test
+    void floatsRoundTripAcrossSegments() throws IOException {
+        double[] values = values(77);
+        ByteBuffer bytes = ByteBuffer.allocate(values.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (float) values[i];
+            bytes.putFloat((float) values[i]);
+        }
+        Path file = Files.write(dir.resolve("values.f32"), bytes.array());
+
+        MappedColumn column = MappedColumn.open(file, MappedColumn.Type.FLOAT32, SEGMENT_BYTES_SHIFT);
+        assertRoundTrip(values, column);
+    }
+
+    @Test
+    void rejectsPartialValues() throws IOException {
+        Path file = Files.write(dir.resolve("odd.f64"), new byte[12]);
+        assertThrows(IOException.class, () -> MappedColumn.openDoubles(file));
+    }
+
+    private static void assertRoundTrip(double[] values, MappedColumn column) {
+        assertEquals(values.length, column.size());
+        assertArrayEquals(values, column.toArray(0, values.length));
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], column.get(i));
+        }
+
+        // A window starting mid-segment and spanning several boundaries
+        double[] window = new double[30];
+        column.copyTo(5, window, 2, 27);
+        for (int i = 0; i < 27; i++) {
+            assertEquals(values[5 + i], window[2 + i]);
+        }
+
+        double[] streamed = new double[values.length];
+        int[] next = {0};
+        column.forEachChunk(5, (buffer, from, to) -> {
+            System.arraycopy(buffer, from, streamed, next[0], to - from);
+            next[0] += to - from;
+        });
+        assertArrayEquals(values, streamed);
+
+        double[] edges = Baseline.uniformEdges(-2.0, 2.0, 9);
+        assertArrayEquals(Baseline.countEdges(values, edges), column.count(BinIndexer.forEdges(edges)));
+    }
+}
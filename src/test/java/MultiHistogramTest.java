@@ -0,0 +1,156 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiHistogramTest {
+
+    private final Random rnd = new Random(21);
+
+    /** Many small, one large (split over several leaves), an empty and an all-NaN dataset. */
+    private double[][] datasets(double[] edges) {
+        double[][] datasets = new double[24][];
+        for (int s = 0; s < 20; s++) {
+            datasets[s] = Baseline.samples(rnd, 5_000 + 997 * s, edges);
+            for (int i = 0; i < datasets[s].length; i++) {
+                datasets[s][i] += 0.1 * s;
+            }
+        }
+        datasets[20] = Baseline.samples(rnd, 700_000, edges);
+        datasets[21] = new double[0];
+        datasets[22] = new double[]{Double.NaN, Double.NaN};
+        datasets[23] = new double[]{edges[0], edges[edges.length - 1]};
+        return datasets;
+    }
+
+    private static double[] column(MultiHistogram h, int series) {
+        double[] c = new double[h.numBins()];
+        for (int i = 0; i < c.length; i++) {
+            c[i] = h.count(series, i);
+        }
+        return c;
+    }
+
+    @Test
+    void sharedEdgesMatchPerDatasetLoop() {
+        for (double[] edges : new double[][]{
+                Baseline.uniformEdges(-3.0, 4.0, 28),
+                Baseline.unevenEdges(rnd, 200),
+                {2.0, 0.0, 1.0, 3.0}}) {
+            double[][] datasets = datasets(edges);
+            MultiHistogram h = MultiHistogram.withEdges(datasets, edges);
+            assertEquals(datasets.length, h.numSeries());
+            for (int s = 0; s < datasets.length; s++) {
+                double[] expected = Baseline.countEdges(datasets[s], edges);
+                assertArrayEquals(expected, column(h, s), "series " + s);
+                assertEquals(Arrays.stream(expected).sum(), h.totalCounts[s]);
+            }
+        }
+    }
+
+    @Test
+    void anchoredGridMatchesFloorRule() {
+        assertGridMatchesFloorRule(datasets(Baseline.uniformEdges(-4.0, 4.0, 32)), 0.25, 0.1);
+    }
+
+    @Test
+    void manySeriesOnDisjointRanges() {
+        // Thousands of leaves of one series each, with two datasets split across leaves
+        double[] edges = Baseline.uniformEdges(-2.0, 2.0, 40);
+        double[][] datasets = new double[3000][];
+        for (int s = 0; s < datasets.length; s++) {
+            int n = s == 1000 || s == 2999 ? 400_000 : rnd.nextInt(300);
+            datasets[s] = Baseline.samples(rnd, n, edges);
+        }
+        MultiHistogram h = MultiHistogram.withEdges(datasets, edges);
+        for (int s = 0; s < datasets.length; s++) {
+            assertArrayEquals(Baseline.countEdges(datasets[s], edges), column(h, s), "series " + s);
+        }
+
+        for (int s = 0; s < datasets.length; s++) {
+            for (int i = 0; i < datasets[s].length; i++) {
+                datasets[s][i] += 0.01 * s;
+            }
+        }
+        assertGridMatchesFloorRule(datasets, 0.125, 0.0);
+    }
+
+    private static void assertGridMatchesFloorRule(double[][] datasets, double binWidth, double anchor) {
+        MultiHistogram h = MultiHistogram.withBinWidth(datasets, binWidth, anchor);
+
+        long lo = Long.MAX_VALUE;
+        long hi = Long.MIN_VALUE;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double[] d : datasets) {
+            for (double v : d) {
+                if (Double.isFinite(v)) {
+                    long k = (long) Math.floor((v - anchor) / binWidth);
+                    lo = Math.min(lo, k);
+                    hi = Math.max(hi, k);
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+            }
+        }
+        assertEquals(hi - lo + 1, h.numBins());
+        assertEquals(min, h.min);
+        assertEquals(max, h.max);
+        for (int i = 0; i <= h.numBins(); i++) {
+            assertEquals(anchor + (lo + i) * binWidth, h.edges[i]);
+        }
+        for (int s = 0; s < datasets.length; s++) {
+            double[] expected = new double[h.numBins()];
+            for (double v : datasets[s]) {
+                if (Double.isFinite(v)) {
+                    expected[(int) ((long) Math.floor((v - anchor) / binWidth) - lo)] += 1.0;
+                }
+            }
+            assertArrayEquals(expected, column(h, s), "series " + s);
+        }
+    }
+
+    @Test
+    void gridOfOnlyEmptyOrNaNDataHasNoBins() {
+        MultiHistogram h = MultiHistogram.withBinWidth(
+                new double[][]{new double[0], {Double.NaN, Double.POSITIVE_INFINITY}}, 1.0, 0.0);
+        assertEquals(0, h.numBins());
+        assertEquals(2, h.numSeries());
+        assertTrue(Double.isNaN(h.min));
+    }
+
+    @Test
+    void normalizationsAreConsistent() {
+        double[] edges = Baseline.unevenEdges(rnd, 30);
+        MultiHistogram h = MultiHistogram.withEdges(datasets(edges), edges);
+        MultiHistogram.Normalized[] n = h.normalize();
+        for (int s = 0; s < h.numSeries(); s++) {
+            double sum = 0.0;
+            double area = 0.0;
+            for (int i = 0; i < h.numBins(); i++) {
+                sum += n[s].probability[i];
+                area += n[s].pdf[i] * h.binWidths[i];
+                assertEquals(h.count(s, i) / h.binWidths[i], n[s].countDensity[i]);
+            }
+            double expected = h.totalCounts[s] > 0 ? 1.0 : 0.0;
+            assertEquals(expected, sum, 1e-9);
+            assertEquals(expected, area, 1e-9);
+        }
+    }
+
+    @Test
+    void rejectsBadArguments() {
+        double[][] one = {{1.0}};
+        assertThrows(IllegalArgumentException.class, () -> MultiHistogram.withEdges(one, new double[]{0.0}));
+        assertThrows(IllegalArgumentException.class, () -> MultiHistogram.withEdges(new double[0][], new double[]{0, 1}));
+        assertThrows(IllegalArgumentException.class, () -> MultiHistogram.withBinWidth(one, 0.0, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> MultiHistogram.withBinWidth(one, 1.0, Double.NaN));
+        assertThrows(IllegalArgumentException.class,
+                () -> MultiHistogram.withBinWidth(new double[][]{{0.0, 1e12}}, 1e-6, 0.0));
+    }
+}
@@ -0,0 +1,93 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OffHeapColumnTest {
+
+    private final Random rnd = new Random(23);
+
+    @Test
+    void closeIsIdempotentAndLaterAccessThrows() {
+        OffHeapColumn column = OffHeapColumn.linspace(0.0, 1.0, 100);
+        column.close();
+        column.close();
+        assertFalse(column.isOpen());
+        double[] buffer = new double[10];
+        assertThrows(IllegalStateException.class, () -> column.get(0));
+        assertThrows(IllegalStateException.class, () -> column.copyTo(0, buffer, 0, 10));
+        assertThrows(IllegalStateException.class, () -> column.write(0, buffer, 0, 10));
+        assertThrows(IllegalStateException.class, () -> column.forEachChunk((b, from, to) -> { }));
+        assertThrows(IllegalStateException.class,
+                () -> Histograms.uniformBinHistogramInRange(column, 0.0, 1.0, 10));
+    }
+
+    @Test
+    void writesAndCopiesCrossSegments() {
+        // 16-value segments: every range below spans one or more boundaries
+        double[] values = new double[200];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rnd.nextGaussian();
+        }
+        try (OffHeapColumn column = OffHeapColumn.allocate(values.length, 4)) {
+            column.write(0, values, 0, 7);
+            column.write(7, values, 7, 50);
+            column.write(57, values, 57, values.length - 57);
+            assertArrayEquals(values, column.toArray(0, values.length));
+
+            double[] window = new double[40];
+            column.copyTo(13, window, 3, 37);
+            for (int i = 0; i < 37; i++) {
+                assertEquals(values[13 + i], window[3 + i]);
+            }
+            assertEquals(values[16], column.get(16));
+            assertEquals(values[199], column.get(199));
+            assertThrows(IndexOutOfBoundsException.class, () -> column.copyTo(190, window, 0, 11));
+        }
+    }
+
+    @Test
+    void randomFillsMatchParallelRandom() {
+        int n = 2 * ParallelRandom.CHUNK + 77;
+        try (OffHeapColumn normal = OffHeapColumn.normal(ParallelRandom.create(5), n, -1.0, 3.0);
+             OffHeapColumn uniform = OffHeapColumn.uniform(ParallelRandom.create(6), n, 2.0, 4.0)) {
+            assertArrayEquals(ParallelRandom.normal(ParallelRandom.create(5), n, -1.0, 3.0), normal.toArray(0, n));
+            assertArrayEquals(ParallelRandom.uniform(ParallelRandom.create(6), n, 2.0, 4.0), uniform.toArray(0, n));
+        }
+    }
+
+    @Test
+    void histogramsMatchArrayBuilders() {
+        double[] edges = Baseline.unevenEdges(rnd, 30);
+        // Finite values (and NaN), so the column's own range is finite
+        double[] data = Arrays.stream(Baseline.samples(rnd, 5_000, edges))
+                .filter(v -> !Double.isInfinite(v)).toArray();
+        double min = Arrays.stream(data).filter(v -> !Double.isNaN(v)).min().getAsDouble();
+        double max = Arrays.stream(data).filter(v -> !Double.isNaN(v)).max().getAsDouble();
+        // 1024-value segments, so counting crosses buffer boundaries
+        try (OffHeapColumn column = OffHeapColumn.allocate(data.length, 10)) {
+            column.write(0, data, 0, data.length);
+            assertEquals(min, column.min());
+            assertEquals(max, column.max());
+
+            assertArrayEquals(Baseline.countRange(data, min, max, 25),
+                    Histograms.uniformBinHistogram(column, 25).binCounts);
+            assertArrayEquals(Baseline.countRange(data, -1.0, 1.5, 17),
+                    Histograms.uniformBinHistogramInRange(column, -1.0, 1.5, 17).binCounts);
+            // 14 bins of 0.3 over [-2, 2.2]
+            assertArrayEquals(Baseline.countRange(data, -2.0, -2.0 + 14 * 0.3, 14),
+                    Histograms.histogramWithBinWidth(column, -2.0, 2.0, 0.3).binCounts);
+            assertArrayEquals(Baseline.countEdges(data, edges),
+                    Histograms.histogramWithCustomEdges(column, edges).binCounts);
+
+            QuantileSketch sketch = new QuantileSketch();
+            sketch.addAll(data, 0, data.length);
+            assertEquals(Histograms.fdBinCount(sketch), Histograms.fdBinCount(column));
+        }
+    }
+}
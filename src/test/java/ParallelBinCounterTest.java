@@ -0,0 +1,60 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelBinCounterTest {
+
+    private final Random rnd = new Random(7);
+
+    @Test
+    void forkJoinPathIsExercised() {
+        // Set by the surefire argLine; without it every count below is serial
+        assertTrue(ForkJoinPool.getCommonPoolParallelism() >= 2);
+    }
+
+    @Test
+    void parallelEdgeCountsMatchSerialLoop() {
+        double[] edges = Baseline.unevenEdges(rnd, 64);
+        for (int n : new int[]{0, 1, ParallelBinCounter.PARALLEL_THRESHOLD - 1,
+                ParallelBinCounter.PARALLEL_THRESHOLD, 1_000_003}) {
+            double[] data = Baseline.samples(rnd, n, edges);
+            BinIndexer indexer = BinIndexer.forEdges(edges);
+            double[] counts = ParallelBinCounter.count(data, indexer.numBins(), indexer::countInto);
+            assertArrayEquals(Baseline.countEdges(data, edges), counts, "n = " + n);
+        }
+    }
+
+    @Test
+    void parallelRangeCountsMatchSerialLoop() {
+        double min = -2.5;
+        double max = 3.25;
+        int bins = 50;
+        double[] data = Baseline.samples(rnd, 1_500_000, Baseline.uniformEdges(min, max, bins));
+        // Exactly max must land in the last bin, in whichever chunk it falls
+        data[ParallelBinCounter.PARALLEL_THRESHOLD + 5] = max;
+        double[] counts = ParallelBinCounter.count(data, bins, (d, from, to, c) -> {
+            for (int i = from; i < to; i++) {
+                int idx = Baseline.rangeBin(min, max, bins, d[i]);
+                if (idx >= 0) {
+                    c[idx] += 1.0;
+                }
+            }
+        });
+        assertArrayEquals(Baseline.countRange(data, min, max, bins), counts);
+    }
+
+    @Test
+    void rangeCounterSeesEveryIndexOnce() {
+        long size = 3L * ParallelBinCounter.PARALLEL_THRESHOLD + 17;
+        double[] counts = ParallelBinCounter.count(size, 3, (from, to, c) -> {
+            for (long i = from; i < to; i++) {
+                c[(int) (i % 3)] += 1.0;
+            }
+        });
+        assertArrayEquals(new double[]{(size + 2) / 3, (size + 1) / 3, size / 3}, counts);
+    }
+}
@@ -0,0 +1,96 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelRandomTest {
+
+    // Three full chunks and a partial one
+    private static final int N = 3 * ParallelRandom.CHUNK + 123;
+
+    /** Serial reference: chunk k is drawn from the k-th split of the root, in order. */
+    private static double[] serialReference(SplittableGenerator root, int n, boolean normal) {
+        double[] out = new double[n];
+        for (int from = 0; from < n; from += ParallelRandom.CHUNK) {
+            RandomGenerator rng = root.split();
+            for (int i = from; i < Math.min(n, from + ParallelRandom.CHUNK); i++) {
+                out[i] = normal ? 1.5 + 2.0 * ZigguratNormal.next(rng) : rng.nextDouble(-3.0, 5.0);
+            }
+        }
+        return out;
+    }
+
+    @Test
+    void fillsMatchSerialReferenceAtAnyParallelism() throws InterruptedException, ExecutionException {
+        double[] normal = serialReference(ParallelRandom.create(19), N, true);
+        double[] uniform = serialReference(ParallelRandom.create(20), N, false);
+        for (int parallelism : new int[]{1, 4}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                assertArrayEquals(normal, pool.submit(
+                        () -> ParallelRandom.normal(ParallelRandom.create(19), N, 1.5, 2.0)).get());
+                assertArrayEquals(uniform, pool.submit(
+                        () -> ParallelRandom.uniform(ParallelRandom.create(20), N, -3.0, 5.0)).get());
+            } finally {
+                pool.shutdown();
+            }
+        }
+        // Outside a pool: the common pool
+        assertArrayEquals(normal, ParallelRandom.normal(ParallelRandom.create(19), N, 1.5, 2.0));
+    }
+
+    @Test
+    void zigguratTailsHaveNormalMoments() {
+        // Samples beyond the base strip R = 3.442619855899 come from the tail sampler
+        double r = 3.442619855899;
+        double q = upperTail(r);
+        double tailMean = density(r) / q;
+        double tailSecondMoment = 1.0 + r * tailMean;
+
+        int n = 1 << 23;
+        double[] z = ParallelRandom.normal(ParallelRandom.create(7), n, 0.0, 1.0);
+        double sum = 0;
+        double sumSq = 0;
+        long tail = 0;
+        double tailSum = 0;
+        double tailSumSq = 0;
+        for (double v : z) {
+            sum += v;
+            sumSq += v * v;
+            double a = Math.abs(v);
+            if (a > r) {
+                tail++;
+                tailSum += a;
+                tailSumSq += a * a;
+            }
+        }
+        assertEquals(0.0, sum / n, 5 / Math.sqrt(n));
+        assertEquals(1.0, sumSq / n, 5 * Math.sqrt(2.0 / n));
+
+        double expectedTail = 2 * q * n;
+        assertEquals(expectedTail, tail, 5 * Math.sqrt(expectedTail));
+        // Conditional sd of |Z| beyond r is about 0.26, so these are about 5 standard errors
+        assertEquals(tailMean, tailSum / tail, 1.3 / Math.sqrt(tail));
+        assertEquals(tailSecondMoment, tailSumSq / tail, 10.0 / Math.sqrt(tail));
+    }
+
+    private static double density(double x) {
+        return Math.exp(-0.5 * x * x) / Math.sqrt(2 * Math.PI);
+    }
+
+    /** P(Z > r) by Simpson's rule; the density is negligible past r + 12. */
+    private static double upperTail(double r) {
+        int steps = 20_000;
+        double h = 12.0 / steps;
+        double sum = density(r) + density(r + 12.0);
+        for (int i = 1; i < steps; i++) {
+            sum += (i % 2 == 0 ? 2 : 4) * density(r + i * h);
+        }
+        return sum * h / 3;
+    }
+}
@@ -0,0 +1,99 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+    // The documented bound for the default k: quartiles within about 1% of their rank
+    private static final double RANK_TOLERANCE = 0.01;
+
+    private final Random rnd = new Random(5);
+
+    private static void assertRanksClose(double[] data, QuantileSketch sketch) {
+        double[] sorted = data.clone();
+        Arrays.sort(sorted);
+        double[] qs = {0.01, 0.25, 0.5, 0.75, 0.99};
+        double[] estimates = sketch.quantiles(qs);
+        for (int j = 0; j < qs.length; j++) {
+            // Fraction of samples below the estimate, and at or below it
+            int lo = lowerBound(sorted, estimates[j]);
+            int hi = lowerBound(sorted, Math.nextUp(estimates[j]));
+            double q = qs[j];
+            double distance = q * sorted.length < lo ? lo / (double) sorted.length - q
+                    : q * sorted.length > hi ? q - hi / (double) sorted.length : 0.0;
+            assertTrue(distance <= RANK_TOLERANCE, "q = " + q + " off by " + distance);
+        }
+    }
+
+    private static int lowerBound(double[] sorted, double v) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < v) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    @Test
+    void quantilesStayWithinRankBound() {
+        for (int n : new int[]{10, 1_000, 100_000, 2_000_000}) {
+            double[] data = new double[n];
+            for (int i = 0; i < n; i++) {
+                data[i] = rnd.nextGaussian();
+            }
+            QuantileSketch sketch = QuantileSketch.of(data);
+            assertEquals(n, sketch.count());
+            assertRanksClose(data, sketch);
+        }
+    }
+
+    @Test
+    void sortedAndTiedInputsStayWithinRankBound() {
+        double[] ascending = new double[500_000];
+        double[] ties = new double[500_000];
+        for (int i = 0; i < ascending.length; i++) {
+            ascending[i] = i;
+            ties[i] = rnd.nextInt(7);
+        }
+        assertRanksClose(ascending, QuantileSketch.of(ascending));
+        assertRanksClose(ties, QuantileSketch.of(ties));
+    }
+
+    @Test
+    void mergedSketchesMatchOneSketchBound() {
+        double[] data = new double[1_000_000];
+        QuantileSketch merged = new QuantileSketch();
+        for (int c = 0; c < 10; c++) {
+            QuantileSketch part = new QuantileSketch();
+            for (int i = c * 100_000; i < (c + 1) * 100_000; i++) {
+                data[i] = rnd.nextDouble() * rnd.nextDouble();
+                part.add(data[i]);
+            }
+            merged.merge(part);
+        }
+        assertEquals(data.length, merged.count());
+        assertEquals(Arrays.stream(data).min().getAsDouble(), merged.min());
+        assertEquals(Arrays.stream(data).max().getAsDouble(), merged.max());
+        assertRanksClose(data, merged);
+    }
+
+    @Test
+    void nanIsIgnoredAndEmptyGivesNaN() {
+        QuantileSketch empty = new QuantileSketch();
+        empty.add(Double.NaN);
+        assertEquals(0, empty.count());
+        assertTrue(Double.isNaN(empty.quantile(0.5)));
+        assertTrue(Double.isNaN(empty.min()));
+
+        QuantileSketch one = QuantileSketch.of(new double[]{Double.NaN, 3.0, Double.NaN});
+        assertEquals(1, one.count());
+        assertArrayEquals(new double[]{3.0, 3.0, 3.0}, one.quantiles(0.0, 0.5, 1.0));
+    }
+}
@@ -0,0 +1,85 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SeriesDecimatorTest {
+
+    private final Random rnd = new Random(13);
+
+    private static double[][] streamed(double[] x, double[] y, int columns) {
+        SeriesDecimator.Span span = new SeriesDecimator.Span();
+        // Pieces of uneven size, as parallel file segments would give
+        SeriesDecimator.Span piece = new SeriesDecimator.Span();
+        for (int i = 0; i < x.length; i++) {
+            piece.add(x[i]);
+            if (i % 997 == 0) {
+                span.append(piece);
+                piece = new SeriesDecimator.Span();
+            }
+        }
+        span.append(piece);
+
+        SeriesDecimator.MinMaxStream stream = new SeriesDecimator.MinMaxStream(span, columns);
+        for (int i = 0; i < x.length; i++) {
+            stream.add(x[i], y[i]);
+        }
+        return stream.result();
+    }
+
+    private static void assertSameAsMinMax(double[] x, double[] y, int columns) {
+        double[][] expected = SeriesDecimator.minMax(x, y, 0, x.length, columns);
+        double[][] actual = streamed(x, y, columns);
+        assertArrayEquals(expected[0], actual[0]);
+        assertArrayEquals(expected[1], actual[1]);
+    }
+
+    @Test
+    void streamMatchesMinMax() {
+        int n = 100_000;
+        double[] ascending = new double[n];
+        double[] shuffled = new double[n];
+        double[] constant = new double[n];
+        double[] y = new double[n];
+        double t = 0.0;
+        for (int i = 0; i < n; i++) {
+            t += rnd.nextInt(3) * 0.25;
+            ascending[i] = t;
+            shuffled[i] = rnd.nextDouble();
+            constant[i] = 4.0;
+            y[i] = i % 101 == 0 ? Double.NaN : rnd.nextGaussian();
+        }
+        for (int columns : new int[]{1, 7, 640}) {
+            assertSameAsMinMax(ascending, y, columns);
+            assertSameAsMinMax(shuffled, y, columns);
+            assertSameAsMinMax(constant, y, columns);
+        }
+        // A single column holding every y as NaN keeps only the ends
+        double[] nan = new double[n];
+        Arrays.fill(nan, Double.NaN);
+        assertSameAsMinMax(ascending, nan, 640);
+    }
+
+    @Test
+    void smallSeriesPassThrough() {
+        double[] x = {3, 1, 2};
+        double[] y = {1, 2, 3};
+        assertSameAsMinMax(x, y, 640);
+        assertSameAsMinMax(new double[0], new double[0], 640);
+    }
+
+    @Test
+    void streamRejectsMissingOrExtraPoints() {
+        SeriesDecimator.Span span = new SeriesDecimator.Span();
+        span.add(1.0);
+        span.add(2.0);
+        SeriesDecimator.MinMaxStream stream = new SeriesDecimator.MinMaxStream(span, 640);
+        stream.add(1.0, 1.0);
+        assertThrows(IllegalStateException.class, stream::result);
+        stream.add(2.0, 2.0);
+        assertThrows(IllegalStateException.class, () -> stream.add(3.0, 3.0));
+    }
+}
@@ -0,0 +1,53 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingHistogramTest {
+
+    private final Random rnd = new Random(4);
+
+    @Test
+    void incrementalCountsMatchBatchLoop() {
+        double[] edges = Baseline.unevenEdges(rnd, 60);
+        double[] data = Baseline.samples(rnd, 50_000, edges);
+
+        StreamingHistogram byEdges = StreamingHistogram.withEdges(edges);
+        StreamingHistogram byRange = StreamingHistogram.uniform(-2.0, 2.0, 40);
+        for (int from = 0; from < data.length; from += 1234) {
+            int to = Math.min(data.length, from + 1234);
+            byEdges.addAll(data, from, to);
+            for (int i = from; i < to; i++) {
+                byRange.add(data[i]);
+            }
+        }
+        assertArrayEquals(Baseline.countEdges(data, edges), byEdges.snapshot().binCounts);
+        assertArrayEquals(Baseline.countRange(data, -2.0, 2.0, 40), byRange.snapshot().binCounts);
+
+        long nans = 0;
+        long inRange = 0;
+        for (double v : data) {
+            if (Double.isNaN(v)) nans++;
+            else if (Baseline.rangeBin(-2.0, 2.0, 40, v) >= 0) inRange++;
+        }
+        assertEquals(nans, byRange.nanCount());
+        assertEquals(data.length - nans, byRange.count());
+        assertEquals(data.length - nans - inRange, byRange.outOfRangeCount());
+    }
+
+    @Test
+    void emptyAndReset() {
+        StreamingHistogram h = StreamingHistogram.withBinWidth(0.0, 1.0, 0.3);
+        assertEquals(4, h.snapshot().binCounts.length);
+        assertTrue(Double.isNaN(h.mean()));
+        h.addAll(new double[]{0.0, 0.5, 1.2, Double.NaN});
+        assertEquals(3, h.count());
+        h.reset();
+        assertEquals(0, h.count());
+        assertEquals(0, h.nanCount());
+        assertArrayEquals(new double[4], h.snapshot().binCounts);
+    }
+}
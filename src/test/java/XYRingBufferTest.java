@@ -0,0 +1,73 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class XYRingBufferTest {
+
+    @Test
+    void keepsTheMostRecentSamplesOldestFirst() {
+        XYRingBuffer ring = new XYRingBuffer(5);
+        assertEquals(8, ring.capacity());
+        double[] x = new double[8];
+        double[] y = new double[8];
+        assertEquals(0, ring.snapshot(x, y));
+
+        for (int i = 0; i < 3; i++) {
+            ring.add(i, -i);
+        }
+        assertEquals(3, ring.snapshot(x, y));
+        assertEquals(2.0, x[2]);
+        assertEquals(-2.0, y[2]);
+
+        for (int i = 3; i < 20; i++) {
+            ring.add(i, -i);
+        }
+        assertEquals(20, ring.added());
+        assertEquals(8, ring.snapshot(x, y));
+        for (int k = 0; k < 8; k++) {
+            assertEquals(12.0 + k, x[k]);
+            assertEquals(-(12.0 + k), y[k]);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new XYRingBuffer(0));
+    }
+
+    @Test
+    void snapshotsDuringWritesAreConsistent() throws InterruptedException {
+        XYRingBuffer ring = new XYRingBuffer(64);
+        int samples = 2_000_000;
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < samples; i++) {
+                ring.add(i, 2.0 * i + 1.0);
+            }
+        });
+        writer.start();
+
+        double[] x = new double[ring.capacity()];
+        double[] y = new double[ring.capacity()];
+        int snapshots = 0;
+        while (writer.isAlive() || snapshots == 0) {
+            long addedBefore = ring.added();
+            int n = ring.snapshot(x, y);
+            long addedAfter = ring.added();
+            assertTrue(n <= ring.capacity());
+            for (int k = 0; k < n; k++) {
+                // Never a torn pair, never a sample from before the window, always in order
+                assertEquals(2.0 * x[k] + 1.0, y[k]);
+                assertTrue(x[k] >= addedBefore - ring.capacity() && x[k] < addedAfter);
+                if (k > 0) {
+                    assertTrue(x[k] > x[k - 1]);
+                }
+            }
+            snapshots++;
+        }
+        writer.join();
+
+        int n = ring.snapshot(x, y);
+        assertEquals(ring.capacity(), n);
+        for (int k = 0; k < n; k++) {
+            assertEquals(samples - n + k, x[k]);
+        }
+    }
+}